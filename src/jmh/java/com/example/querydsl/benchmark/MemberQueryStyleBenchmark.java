@@ -0,0 +1,142 @@
+package com.example.querydsl.benchmark;
+
+import static com.example.querydsl.entity.QMember.member;
+
+import com.example.querydsl.dto.MemberDto;
+import com.example.querydsl.dto.MemberDto2;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.dto.QMemberDto2;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.projection.FastProjections;
+import com.example.querydsl.repository.MemberJpaRepository;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 같은 조회를 JPQL 문자열 / Querydsl, 프로젝션 방식별로 비교한다.
+ * searchByBuilder/searchByWhere 는 조건 조합별로 캐시된 JPQL 에 값만 바인딩한다 (MemberSearchQueryCache).
+ * 모든 호출은 (테스트와 같은) 쓰기 트랜잭션 안에서 실행해 검색 결과 캐시를 거치지 않게 한다.
+ */
+@State(Scope.Benchmark)
+public class MemberQueryStyleBenchmark {
+
+    @Param({"1000", "100000"})
+    int rows;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepository memberJpaRepository;
+    JPAQueryFactory queryFactory;
+    TransactionTemplate transactionTemplate;
+
+    String username;
+    MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(rows);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        queryFactory = new JPAQueryFactory(context.getBean(EntityManager.class));
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        username = "member" + (rows / 2);
+        condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(30);
+        condition.setAgeLoe(31);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> jpqlFindAll() {
+        return transactionTemplate.execute(status -> memberJpaRepository.finaAll());
+    }
+
+    @Benchmark
+    public List<Member> querydslFindAll() {
+        return transactionTemplate.execute(status -> memberJpaRepository.findAll_queryDsl());
+    }
+
+    @Benchmark
+    public List<Member> jpqlFindByUsername() {
+        return transactionTemplate.execute(status -> memberJpaRepository.findByUserName(username));
+    }
+
+    @Benchmark
+    public List<Member> querydslFindByUsername() {
+        return transactionTemplate.execute(status -> memberJpaRepository.findByUsername_queryDsl(username));
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByBuilder() {
+        return transactionTemplate.execute(status -> memberJpaRepository.searchByBuilder(condition));
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByWhere() {
+        return transactionTemplate.execute(status -> memberJpaRepository.searchByWhere(condition));
+    }
+
+    @Benchmark
+    public List<MemberDto> projectionBean() {
+        return transactionTemplate.execute(status -> queryFactory
+                .select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> projectionFields() {
+        return transactionTemplate.execute(status -> queryFactory
+                .select(Projections.fields(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> projectionConstructor() {
+        return transactionTemplate.execute(status -> queryFactory
+                .select(Projections.constructor(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto2> projectionQueryProjection() {
+        return transactionTemplate.execute(status -> queryFactory
+                .select(new QMemberDto2(member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> projectionFastBean() {
+        return transactionTemplate.execute(status -> queryFactory
+                .select(FastProjections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> projectionFastConstructor() {
+        return transactionTemplate.execute(status -> queryFactory
+                .select(FastProjections.constructor(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+}
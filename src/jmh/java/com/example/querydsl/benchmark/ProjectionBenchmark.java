@@ -0,0 +1,85 @@
+package com.example.querydsl.benchmark;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+
+import com.example.querydsl.dto.MemberDto;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.dto.QMemberTeamDto;
+import com.example.querydsl.projection.FastProjections;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * DB 없이 row 하나를 DTO 로 만드는 비용만 비교한다 (FactoryExpression.newInstance).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProjectionBenchmark {
+
+    final Object[] memberRow = {"member1", 10};
+    final Object[] memberTeamRow = {1L, "member1", 10, 2L, "teamA"};
+
+    final FactoryExpression<MemberDto> bean = Projections.bean(MemberDto.class, member.username, member.age);
+    final FactoryExpression<MemberDto> fields = Projections.fields(MemberDto.class, member.username, member.age);
+    final FactoryExpression<MemberDto> constructor =
+            Projections.constructor(MemberDto.class, member.username, member.age);
+    final FactoryExpression<MemberDto> fastBean = FastProjections.bean(MemberDto.class, member.username, member.age);
+    final FactoryExpression<MemberDto> fastConstructor =
+            FastProjections.constructor(MemberDto.class, member.username, member.age);
+
+    final FactoryExpression<MemberTeamDto> queryProjection =
+            new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name);
+    final FactoryExpression<MemberTeamDto> fastMemberTeam = FastProjections.constructor(MemberTeamDto.class,
+            member.id, member.username, member.age, team.id, team.name);
+    final FactoryExpression<MemberTeamDto> constructorMemberTeam = Projections.constructor(MemberTeamDto.class,
+            member.id, member.username, member.age, team.id, team.name);
+
+    @Benchmark
+    public MemberDto projectionsBean() {
+        return bean.newInstance(memberRow);
+    }
+
+    @Benchmark
+    public MemberDto projectionsFields() {
+        return fields.newInstance(memberRow);
+    }
+
+    @Benchmark
+    public MemberDto projectionsConstructor() {
+        return constructor.newInstance(memberRow);
+    }
+
+    @Benchmark
+    public MemberDto fastProjectionsBean() {
+        return fastBean.newInstance(memberRow);
+    }
+
+    @Benchmark
+    public MemberDto fastProjectionsConstructor() {
+        return fastConstructor.newInstance(memberRow);
+    }
+
+    @Benchmark
+    public MemberTeamDto queryProjectionMemberTeam() {
+        return queryProjection.newInstance(memberTeamRow);
+    }
+
+    @Benchmark
+    public MemberTeamDto projectionsConstructorMemberTeam() {
+        return constructorMemberTeam.newInstance(memberTeamRow);
+    }
+
+    @Benchmark
+    public MemberTeamDto fastProjectionsMemberTeam() {
+        return fastMemberTeam.newInstance(memberTeamRow);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.repository.MemberJpaRepository;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 회원 전체를 managed / read-only / stateless 로 로딩할 때의 처리량과 할당량(gc 프로파일러의 gc.alloc.rate.norm) 비교.
+ * 보통의 서비스 코드처럼 쓰기 트랜잭션 안에서 호출하고, 트랜잭션 끝의 flush(dirty checking) 비용까지 포함된다.
+ */
+@State(Scope.Benchmark)
+public class ReadOnlyLoadBenchmark {
+
+    @Param({"100000"})
+    int rows;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepository memberJpaRepository;
+    TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(rows);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> managed() {
+        return transactionTemplate.execute(status -> memberJpaRepository.findAll_queryDsl());
+    }
+
+    @Benchmark
+    public List<Member> readOnly() {
+        return transactionTemplate.execute(status -> memberJpaRepository.findAll_readOnly());
+    }
+
+    //team 까지 fetch join 으로 읽으므로 나머지보다 하는 일이 많다
+    @Benchmark
+    public List<Member> stateless() {
+        return transactionTemplate.execute(status -> memberJpaRepository.findAll_stateless());
+    }
+}
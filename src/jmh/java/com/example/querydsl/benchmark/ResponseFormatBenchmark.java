@@ -0,0 +1,85 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.format.MemberBinaryWriter;
+import com.example.querydsl.format.MemberColumnarJsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * DB 없이 같은 검색 결과를 기본 JSON 배열 / 컬럼형 JSON / 바이너리로 직렬화하는 시간 비교.
+ * row 당 바이트 수는 ResponseSize 보조 카운터(bytesPerRow)로 각 벤치마크 결과에 함께 나온다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseFormatBenchmark {
+
+    @Param({"100", "10000"})
+    int rows;
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+    List<MemberTeamDto> result;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        result = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            long teamId = i % 10 + 1;
+            result.add(new MemberTeamDto((long) i + 1, "member" + i, i % 100, teamId, "team" + teamId));
+        }
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream jackson(ResponseSize size) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        objectMapper.writeValue(out, result);
+        return size.record(out, rows);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream columnar(ResponseSize size) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MemberColumnarJsonWriter.write(objectMapper.getFactory(), result, out);
+        return size.record(out, rows);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream binary(ResponseSize size) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MemberBinaryWriter.write(result, out);
+        return size.record(out, rows);
+    }
+
+    //EVENTS 는 시간으로 나누지 않고 필드 값을 그대로 보고한다 (스레드 1개 기준)
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ResponseSize {
+
+        public double bytesPerRow;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesPerRow = 0;
+        }
+
+        ByteArrayOutputStream record(ByteArrayOutputStream out, int rows) {
+            bytesPerRow = (double) out.size() / rows;
+            return out;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.querydsl.benchmark;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.dto.QMemberTeamDto;
+import com.example.querydsl.repository.MemberJpaRepository;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * username 앞부분/부분 문자열 검색을 인덱스(범위, member_trigram)로 할 때와 그냥 like 로 할 때 비교.
+ * 회원 이름이 member0 ~ member999999 라 "mber1" 처럼 모든 회원이 가진 trigram 이 섞인 검색어는
+ * trigram 으로 후보가 거의 줄지 않는 최악의 경우이고, "12345" 는 숫자 trigram 만이라 후보가 적다.
+ * 모든 호출은 쓰기 트랜잭션 안에서 실행해 검색 결과 캐시를 거치지 않게 한다.
+ */
+@State(Scope.Benchmark)
+public class UsernameSearchBenchmark {
+
+    private static final String PREFIX = "member12345";
+
+    @Param({"1000000"})
+    int rows;
+
+    @Param({"12345", "mber1"})
+    String term;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepository memberJpaRepository;
+    JPAQueryFactory queryFactory;
+    TransactionTemplate transactionTemplate;
+
+    MemberSearchCondition prefixCondition;
+    MemberSearchCondition containsCondition;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(rows);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        queryFactory = new JPAQueryFactory(context.getBean(EntityManager.class));
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        prefixCondition = new MemberSearchCondition();
+        prefixCondition.setUsernameStartsWith(PREFIX);
+        containsCondition = new MemberSearchCondition();
+        containsCondition.setUsernameContains(term);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //username >= ? and username < ?
+    @Benchmark
+    public List<MemberTeamDto> prefixRange() {
+        return transactionTemplate.execute(status -> memberJpaRepository.searchByWhere(prefixCondition));
+    }
+
+    //H2 도 like 'x%' 는 인덱스 범위로 바꾸므로 prefixRange 와 비슷해야 정상이다
+    @Benchmark
+    public List<MemberTeamDto> prefixLike() {
+        return transactionTemplate.execute(status -> naive(member.username.startsWith(PREFIX)));
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> containsTrigram() {
+        return transactionTemplate.execute(status -> memberJpaRepository.searchByWhere(containsCondition));
+    }
+
+    //like '%x%' 는 회원 전체를 읽는다
+    @Benchmark
+    public List<MemberTeamDto> containsLike() {
+        return transactionTemplate.execute(status -> naive(member.username.contains(term)));
+    }
+
+    //searchByWhere 와 같은 프로젝션/조인에 조건만 바꾼다
+    private List<MemberTeamDto> naive(Predicate predicate) {
+        return queryFactory
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(predicate)
+                .fetch();
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.querydsl.async;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 조회 쿼리를 servlet 스레드 대신 실행하는 전용 executor.
+ * 동시에 실행되는 작업 수를 커넥션 풀 크기에 맞춰서, 풀을 기다리며 막혀 있는 스레드가 생기지 않게 한다.
+ * 실행 중 + 대기 작업이 poolSize + queueCapacity 를 넘으면 바로 RejectedExecutionException 으로 실패시키고,
+ * timeout 이 지나면 TimeoutException 으로 실패시킨다. (이미 실행 중인 쿼리 자체를 취소하지는 않는다)
+ * virtual-threads=true 이고 JDK 가 지원하면 작업마다 virtual thread 를 쓰고, 같은 한도를 Semaphore 두 개로 건다.
+ * 받아들이는 작업은 poolSize + queueCapacity 까지, 그 중 동시에 쿼리를 실행하는 것은 poolSize 까지다.
+ *
+ * <pre>
+ * member.query.executor.*                          큐 길이, 실행 중 작업 수 등 (ThreadPoolExecutor 일 때)
+ * member.query.rejected / member.query.timeout     거절/타임아웃 건수
+ * </pre>
+ */
+@Slf4j
+@Component
+public class QueryExecutor {
+
+    private final ExecutorService executor;
+    //virtual thread 일 때만 사용. 스레드 풀이 아니라서 따로 한도를 건다
+    //admission: 실행 중 + 대기 작업 수 (넘으면 거절), running: 동시에 실행하는 작업 수 (커넥션 풀 크기)
+    private final Semaphore admission;
+    private final Semaphore running;
+    private final long timeoutMillis;
+    private final Counter rejected;
+    private final Counter timeout;
+
+    public QueryExecutor(@Value("${member.async.pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int poolSize,
+                         @Value("${member.async.queue-capacity:100}") int queueCapacity,
+                         @Value("${member.async.timeout-millis:5000}") long timeoutMillis,
+                         @Value("${member.async.virtual-threads:false}") boolean virtualThreads,
+                         MeterRegistry meterRegistry) {
+        this(virtualThreads ? newVirtualThreadPerTaskExecutor() : null, poolSize, queueCapacity, timeoutMillis,
+                meterRegistry);
+    }
+
+    /**
+     * @param perTaskExecutor 작업마다 스레드를 만드는 executor (virtual thread). null 이면 poolSize 크기의 스레드 풀을 쓴다
+     */
+    QueryExecutor(ExecutorService perTaskExecutor, int poolSize, int queueCapacity, long timeoutMillis,
+                  MeterRegistry meterRegistry) {
+        this.timeoutMillis = timeoutMillis;
+        this.rejected = meterRegistry.counter("member.query.rejected");
+        this.timeout = meterRegistry.counter("member.query.timeout");
+
+        if (perTaskExecutor != null) {
+            this.executor = perTaskExecutor;
+            this.admission = new Semaphore(poolSize + queueCapacity);
+            this.running = new Semaphore(poolSize);
+        } else {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity), new QueryThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+            this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "member.query.executor");
+            this.admission = null;
+            this.running = null;
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> query) {
+        CompletableFuture<T> future;
+        try {
+            future = admission == null ? CompletableFuture.supplyAsync(query, executor) : supplyWithPermit(query);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+        return future
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((result, e) -> {
+                    if (e instanceof TimeoutException) {
+                        timeout.increment();
+                    }
+                });
+    }
+
+    private <T> CompletableFuture<T> supplyWithPermit(Supplier<T> query) {
+        if (!admission.tryAcquire()) {
+            throw new RejectedExecutionException("query executor is saturated");
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> runWhenConnectionSlotIsFree(query), executor)
+                    .whenComplete((result, e) -> admission.release());
+        } catch (RejectedExecutionException e) {
+            admission.release();
+            throw e;
+        }
+    }
+
+    //대기 중인 작업은 virtual thread 안에서 막혀 있으므로 플랫폼 스레드를 잡지 않는다
+    private <T> T runWhenConnectionSlotIsFree(Supplier<T> query) {
+        try {
+            running.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("interrupted while waiting for a connection slot", e);
+        }
+        try {
+            return query.get();
+        } finally {
+            running.release();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    //Java 11 로 빌드하므로 Executors.newVirtualThreadPerTaskExecutor() 는 리플렉션으로 찾는다
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("virtual threads are not supported on this JDK, using a bounded thread pool");
+            return null;
+        }
+    }
+
+    private static class QueryThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "member-query-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
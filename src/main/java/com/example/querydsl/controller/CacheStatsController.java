@@ -0,0 +1,72 @@
+package com.example.querydsl.controller;
+
+import com.example.querydsl.repository.MemberSearchQueryCache;
+import com.example.querydsl.repository.MemberSearchResultCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+//운영 확인용 캐시 통계
+@RestController
+@RequiredArgsConstructor
+public class CacheStatsController {
+
+    private final MemberSearchQueryCache searchQueryCache;
+    private final MemberSearchResultCache searchResultCache;
+    private final EntityManagerFactory emf;
+
+    @GetMapping("/internal/cache/search-query")
+    public Map<String, Long> searchQueryCache() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hits", searchQueryCache.getHits());
+        stats.put("misses", searchQueryCache.getMisses());
+        return stats;
+    }
+
+    @GetMapping("/internal/cache/search-result")
+    public Map<String, Object> searchResultCache() {
+        CacheStats cacheStats = searchResultCache.stats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", searchResultCache.size());
+        stats.put("hits", cacheStats.hitCount());
+        stats.put("misses", cacheStats.missCount());
+        stats.put("evictions", cacheStats.evictionCount());
+        stats.put("hitRatio", cacheStats.hitRate());
+        return stats;
+    }
+
+    //Team 2차 캐시/쿼리 캐시 적중률 (cache 프로파일에서만 enabled)
+    @GetMapping("/internal/cache/team")
+    public Map<String, Object> teamCache() {
+        SessionFactory sessionFactory = emf.unwrap(SessionFactory.class);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        boolean enabled = sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled();
+        stats.put("enabled", enabled);
+        if (!enabled) {
+            return stats;
+        }
+        Statistics statistics = sessionFactory.getStatistics();
+        stats.put("entity", regionStats(statistics.getDomainDataRegionStatistics("team")));
+        stats.put("teamByName", regionStats(statistics.getQueryRegionStatistics("query.teamByName")));
+        return stats;
+    }
+
+    private Map<String, Object> regionStats(CacheRegionStatistics region) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        //쿼리 캐시 region 은 처음 사용될 때 만들어진다
+        long hits = region == null ? 0 : region.getHitCount();
+        long misses = region == null ? 0 : region.getMissCount();
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("puts", region == null ? 0 : region.getPutCount());
+        stats.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return stats;
+    }
+}
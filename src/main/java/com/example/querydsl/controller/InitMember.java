@@ -2,10 +2,14 @@ package com.example.querydsl.controller;
 
 import com.example.querydsl.entity.Member;
 import com.example.querydsl.entity.Team;
+import java.util.ArrayList;
+import java.util.List;
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,20 +26,78 @@ public class InitMember {
         initMemberService.init();
     }
 
+    /**
+     * member.init.* 로 건수를 조절한다. 대량으로 넣을 때는 jdbc batch insert 가 되도록
+     * batch-size 마다 flush 하고, 1차 캐시가 계속 커지지 않게 clear 한다.
+     * (수백만 건이면 spring.jpa.show-sql=false 로 SQL 로그도 꺼야 한다)
+     */
+    @Slf4j
     @Component
     static class InitMemberService {
         @PersistenceContext private EntityManager em;
+
+        @Value("${member.init.rows:100}") private int rows;
+        @Value("${member.init.teams:2}") private int teamCount;
+        @Value("${member.init.batch-size:100}") private int batchSize;
+
+        //0 이면 나머지 연산에서 ArithmeticException 이 나므로 기동할 때 설정 오류로 알려준다
+        @PostConstruct
+        void validate() {
+            if (rows < 0) {
+                throw new IllegalArgumentException("member.init.rows must not be negative but was " + rows);
+            }
+            if (teamCount < 1) {
+                throw new IllegalArgumentException("member.init.teams must be at least 1 but was " + teamCount);
+            }
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("member.init.batch-size must be at least 1 but was " + batchSize);
+            }
+        }
+
         @Transactional
         public void init(){
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
-
-            for (int i = 0; i < 100; i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member" + i, i, selectedTeam));
+            long start = System.nanoTime();
+
+            List<Long> teamIds = new ArrayList<>();
+            for (int i = 0; i < teamCount; i++) {
+                Team team = new Team(teamName(i));
+                em.persist(team);
+                teamIds.add(team.getId());
             }
+            List<Team> teams = teamReferences(teamIds);
+
+            for (int i = 0; i < rows; i++) {
+                //changeTeam 을 쓰면 팀 프록시가 초기화되므로 연관관계 주인쪽만 세팅한다
+                Member member = new Member("member" + i, i % 100);
+                member.setTeam(teams.get(i % teamCount));
+                em.persist(member);
+
+                if ((i + 1) % batchSize == 0) {
+                    em.flush();
+                    em.clear();
+                    teams = teamReferences(teamIds);
+                }
+            }
+            em.flush();
+            em.clear();
+
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            log.info("init members: rows={}, teams={}, batchSize={}, {} rows/sec",
+                    rows, teamCount, batchSize, Math.round(rows / Math.max(seconds, 0.001)));
+        }
+
+        //clear 이후에는 select 없이 프록시로만 다시 참조한다
+        private List<Team> teamReferences(List<Long> teamIds) {
+            List<Team> teams = new ArrayList<>(teamIds.size());
+            for (Long teamId : teamIds) {
+                teams.add(em.getReference(Team.class, teamId));
+            }
+            return teams;
+        }
+
+        //기존 데이터와 같게 teamA, teamB ... 로 만들고 26개를 넘으면 번호를 붙인다
+        private static String teamName(int index) {
+            return index < 26 ? "team" + (char) ('A' + index) : "team" + index;
         }
     }
 
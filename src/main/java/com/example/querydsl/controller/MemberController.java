@@ -1,22 +1,151 @@
 package com.example.querydsl.controller;
 
+import com.example.querydsl.async.QueryExecutor;
+import com.example.querydsl.dto.MemberBulkImportResult;
+import com.example.querydsl.dto.MemberCursorPage;
 import com.example.querydsl.dto.MemberSearchCondition;
 import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.event.MemberDataVersion;
 import com.example.querydsl.repository.MemberJpaRepository;
+import com.example.querydsl.service.MemberBulkImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import javax.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final MemberJpaRepository memberJpaRepository;
+    private final MemberBulkImportService memberBulkImportService;
+    private final QueryExecutor queryExecutor;
+    private final MemberDataVersion memberDataVersion;
+    private final ObjectMapper objectMapper;
+
+    @Value("${member.stream.fetch-size:500}")
+    private int streamFetchSize;
 
+    //같은 조건으로 폴링할 때 데이터가 바뀌지 않았으면 쿼리 없이 304
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
+    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                              WebRequest webRequest) {
+        if (webRequest.checkNotModified(memberDataVersion.etag(condition, accept))) {
+            return null;
+        }
         return memberJpaRepository.searchByWhere(condition);
     }
+
+    //조회는 QueryExecutor 에서 실행되고 servlet 스레드는 바로 반환된다
+    @GetMapping("/v1/members/async")
+    public CompletableFuture<List<MemberTeamDto>> searchMemberAsync(MemberSearchCondition condition) {
+        return queryExecutor.submit(() -> memberJpaRepository.searchByWhere(condition));
+    }
+
+    @GetMapping("/v2/members")
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
+        return memberJpaRepository.searchPage(condition, pageable);
+    }
+
+    //content 와 count 를 별도 커넥션에서 동시에 실행
+    @GetMapping("/v2/members/concurrent")
+    public Page<MemberTeamDto> searchMemberV2Concurrently(MemberSearchCondition condition, Pageable pageable) {
+        return memberJpaRepository.searchPageConcurrently(condition, pageable);
+    }
+
+    //다음 페이지는 응답의 nextCursor 를 after 로 넘겨서 조회
+    @GetMapping("/v1/members/cursor")
+    public MemberCursorPage searchMemberCursor(MemberSearchCondition condition,
+                                               @RequestParam(required = false) String after,
+                                               @RequestParam(defaultValue = "20") int size) {
+        return memberJpaRepository.searchByCursor(condition, after, size);
+    }
+
+    //한 줄에 MemberTeamDto 하나씩(NDJSON) 조회되는 대로 바로 응답에 쓴다
+    @GetMapping(value = "/v1/members/stream", produces = NDJSON)
+    public void streamMemberV1(MemberSearchCondition condition, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        OutputStream out = response.getOutputStream();
+        try {
+            memberJpaRepository.streamByWhere(condition, streamFetchSize, new NdjsonWriter(out));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
+    //요청 본문을 한 줄씩 읽으면서 batch 단위로 저장한다
+    @PostMapping(value = "/v1/members/bulk", consumes = NDJSON)
+    public MemberBulkImportResult bulkImportNdjson(InputStream body) throws IOException {
+        return memberBulkImportService.importNdjson(body);
+    }
+
+    @PostMapping(value = "/v1/members/bulk", consumes = "text/csv")
+    public MemberBulkImportResult bulkImportCsv(InputStream body) throws IOException {
+        return memberBulkImportService.importCsv(body);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String badRequest(IllegalArgumentException e) {
+        return e.getMessage();
+    }
+
+    //executor 가 꽉 찼거나 제한 시간 안에 끝나지 않으면 잠시 후 다시 시도하게 한다
+    @ExceptionHandler({RejectedExecutionException.class, TimeoutException.class})
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public String serviceUnavailable(Exception e) {
+        return "search is busy, retry later";
+    }
+
+    private class NdjsonWriter implements Consumer<MemberTeamDto> {
+
+        private final OutputStream out;
+        private boolean firstRow = true;
+
+        NdjsonWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void accept(MemberTeamDto dto) {
+            try {
+                out.write(objectMapper.writeValueAsBytes(dto));
+                out.write('\n');
+                if (firstRow) {
+                    //첫 row 는 버퍼가 찰 때까지 기다리지 않고 바로 내보낸다
+                    out.flush();
+                    firstRow = false;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
 }
@@ -0,0 +1,27 @@
+package com.example.querydsl.controller;
+
+import com.example.querydsl.monitoring.SlowQuery;
+import com.example.querydsl.monitoring.SlowQueryLog;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+//운영 확인용 느린 쿼리 목록 (최근 것부터, 실행 계획 포함)
+@RestController
+@RequiredArgsConstructor
+public class SlowQueryController {
+
+    private final SlowQueryLog slowQueryLog;
+
+    @GetMapping("/internal/slow-queries")
+    public List<SlowQuery> slowQueries() {
+        return slowQueryLog.recent();
+    }
+
+    @DeleteMapping("/internal/slow-queries")
+    public void clear() {
+        slowQueryLog.clear();
+    }
+}
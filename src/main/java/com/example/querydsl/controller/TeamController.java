@@ -0,0 +1,38 @@
+package com.example.querydsl.controller;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.TeamStatsResponse;
+import com.example.querydsl.dto.TeamSummaryReconcileResult;
+import com.example.querydsl.repository.MemberJpaRepository;
+import com.example.querydsl.repository.TeamSummaryRepository;
+import com.example.querydsl.service.TeamSummaryReconciler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final TeamSummaryRepository teamSummaryRepository;
+    private final TeamSummaryReconciler teamSummaryReconciler;
+
+    //회원 검색 조건을 그대로 받아 팀별 나이 통계와 전체 합계를 돌려준다
+    @GetMapping("/v1/teams/stats")
+    public TeamStatsResponse teamStats(MemberSearchCondition condition) {
+        return new TeamStatsResponse(memberJpaRepository.teamStats(condition));
+    }
+
+    //조건 없는 팀별 통계를 team_summary 에서 바로 읽는다 (회원 수와 무관하게 팀 수만큼)
+    @GetMapping("/v1/teams/summary")
+    public TeamStatsResponse teamSummary() {
+        return new TeamStatsResponse(teamSummaryRepository.findAllStats());
+    }
+
+    @PostMapping("/internal/team-summary/reconcile")
+    public TeamSummaryReconcileResult reconcileTeamSummary() {
+        return teamSummaryReconciler.reconcile();
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.querydsl.datasource;
+
+public enum DataSourceRoute {
+    PRIMARY, REPLICA
+}
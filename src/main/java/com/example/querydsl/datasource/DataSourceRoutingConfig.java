@@ -0,0 +1,70 @@
+package com.example.querydsl.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * member.datasource.routing.enabled=true 일 때만 켠다.
+ * primary 는 기존 spring.datasource(.hikari) 설정을, replica 는 member.datasource.replica 의 Hikari 설정을 쓴다.
+ * replica 의 jdbc-url 은 기본값이 없어서 라우팅을 켤 때 primary 와 다른 주소로 지정해야 한다.
+ * 풀마다 이름이 달라 hikaricp.connections.*{pool=primary|replica} 메트릭이 따로 잡힌다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "member.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("member.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+                                 @Qualifier("replicaDataSource") HikariDataSource replica,
+                                 MeterRegistry meterRegistry) {
+        //replica 주소를 기본값으로 두면 primary 와 같은 DB 를 보는 풀이 되어 라우팅을 켜도 확인할 수 있는 게 없다
+        if (replica.getJdbcUrl() == null) {
+            throw new IllegalStateException(
+                    "member.datasource.replica.jdbc-url must be set when member.datasource.routing.enabled=true");
+        }
+        if (replica.getJdbcUrl().equals(primary.getJdbcUrl())) {
+            throw new IllegalStateException("member.datasource.replica.jdbc-url must not be the primary url: "
+                    + replica.getJdbcUrl());
+        }
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(meterRegistry);
+        routing.setTargetDataSources(Map.of(DataSourceRoute.PRIMARY, primary, DataSourceRoute.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter() {
+        return new FilterRegistrationBean<>(new ReadYourWritesFilter());
+    }
+}
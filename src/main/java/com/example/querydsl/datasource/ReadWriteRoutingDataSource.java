@@ -0,0 +1,48 @@
+package com.example.querydsl.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.EnumMap;
+import java.util.Map;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * readOnly 트랜잭션은 replica, 나머지는 primary 로 보낸다.
+ * 트랜잭션 시작 시점에는 아직 readOnly 여부가 TransactionSynchronizationManager 에 없으므로
+ * 반드시 LazyConnectionDataSourceProxy 로 감싸서 첫 SQL 시점에 커넥션을 고르게 해야 한다.
+ *
+ * <pre>
+ * datasource.route{route=primary|replica} 커넥션을 고른 횟수
+ * </pre>
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final Map<DataSourceRoute, Counter> routeCounters = new EnumMap<>(DataSourceRoute.class);
+
+    public ReadWriteRoutingDataSource(MeterRegistry meterRegistry) {
+        for (DataSourceRoute route : DataSourceRoute.values()) {
+            routeCounters.put(route, Counter.builder("datasource.route")
+                    .tag("route", route.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        DataSourceRoute route = currentRoute();
+        routeCounters.get(route).increment();
+        return route;
+    }
+
+    private DataSourceRoute currentRoute() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            //같은 요청에서 쓴 적이 있으면 복제 지연을 피해 primary 에서 읽는다
+            return ReadYourWrites.isWritten() ? DataSourceRoute.PRIMARY : DataSourceRoute.REPLICA;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            ReadYourWrites.markWritten();
+        }
+        return DataSourceRoute.PRIMARY;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.querydsl.datasource;
+
+/**
+ * 요청 안에서 한 번이라도 쓰기 트랜잭션이 primary 를 사용했으면 그 요청의 이후 읽기도 primary 로 보낸다.
+ * replica 의 복제 지연 때문에 방금 저장한 데이터가 안 보이는 문제를 막기 위함.
+ * 범위는 ReadYourWritesFilter 가 begin/end 로 연다. 범위 밖(배치, 스케줄러 등)에서는 아무것도 기억하지 않는다.
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<boolean[]> written = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static void begin() {
+        written.set(new boolean[1]);
+    }
+
+    public static void end() {
+        written.remove();
+    }
+
+    static void markWritten() {
+        boolean[] flag = written.get();
+        if (flag != null) {
+            flag[0] = true;
+        }
+    }
+
+    public static boolean isWritten() {
+        boolean[] flag = written.get();
+        return flag != null && flag[0];
+    }
+}
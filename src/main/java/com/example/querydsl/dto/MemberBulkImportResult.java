@@ -0,0 +1,63 @@
+package com.example.querydsl.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+
+@Getter
+public class MemberBulkImportResult {
+
+    //실패 내역은 앞에서부터 이만큼만 담는다
+    private static final int MAX_FAILURES = 100;
+
+    private long totalRows;
+    private long importedRows;
+    private long failedRows;
+    private int batches;
+    private long elapsedMillis;
+    private long rowsPerSecond;
+    private final List<Failure> failures = new ArrayList<>();
+
+    public void batchImported(int rows) {
+        totalRows += rows;
+        importedRows += rows;
+        batches++;
+    }
+
+    public void batchFailed(long fromLine, long toLine, int rows, String message) {
+        totalRows += rows;
+        failedRows += rows;
+        batches++;
+        addFailure(new Failure(fromLine, toLine, message));
+    }
+
+    public void rowRejected(long line, String message) {
+        totalRows++;
+        failedRows++;
+        addFailure(new Failure(line, line, message));
+    }
+
+    public void finish(long elapsedNanos) {
+        this.elapsedMillis = elapsedNanos / 1_000_000;
+        this.rowsPerSecond = elapsedNanos == 0 ? importedRows : importedRows * 1_000_000_000 / elapsedNanos;
+    }
+
+    private void addFailure(Failure failure) {
+        if (failures.size() < MAX_FAILURES) {
+            failures.add(failure);
+        }
+    }
+
+    @Getter
+    public static class Failure {
+        private final long fromLine;
+        private final long toLine;
+        private final String message;
+
+        public Failure(long fromLine, long toLine, String message) {
+            this.fromLine = fromLine;
+            this.toLine = toLine;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.querydsl.dto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import lombok.Getter;
+
+//병렬로 실행되는 구간들이 함께 기록하므로 기록 메서드는 synchronized
+@Getter
+public class MemberChunkedBulkResult {
+
+    private long affectedRows;
+    private int failedChunks;
+    private long elapsedMillis;
+    private final List<Chunk> chunks = new ArrayList<>();
+
+    public synchronized void chunkCompleted(long fromId, long toId, long affected) {
+        affectedRows += affected;
+        chunks.add(new Chunk(fromId, toId, affected, null));
+    }
+
+    public synchronized void chunkFailed(long fromId, long toId, String message) {
+        failedChunks++;
+        chunks.add(new Chunk(fromId, toId, 0, message));
+    }
+
+    public synchronized void finish(long elapsedNanos) {
+        this.elapsedMillis = elapsedNanos / 1_000_000;
+        chunks.sort(Comparator.comparingLong(Chunk::getFromId));
+    }
+
+    @Getter
+    public static class Chunk {
+        private final long fromId;
+        private final long toId;
+        private final long affectedRows;
+        //실패한 구간만 값이 있다. 같은 id 구간으로 다시 실행하면 된다
+        private final String failure;
+
+        public Chunk(long fromId, long toId, long affectedRows, String failure) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.affectedRows = affectedRows;
+            this.failure = failure;
+        }
+    }
+}
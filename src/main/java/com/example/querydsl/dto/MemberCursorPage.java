@@ -0,0 +1,17 @@
+package com.example.querydsl.dto;
+
+import java.util.List;
+import lombok.Getter;
+
+@Getter
+public class MemberCursorPage {
+
+    private final List<MemberTeamDto> content;
+    //마지막 페이지면 null
+    private final String nextCursor;
+
+    public MemberCursorPage(List<MemberTeamDto> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class MemberImportRow {
+
+    private String username;
+    private int age;
+    private String teamName;
+
+    public MemberImportRow() {
+    }
+
+    public MemberImportRow(String username, int age, String teamName) {
+        this.username = username;
+        this.age = age;
+        this.teamName = teamName;
+    }
+}
@@ -6,6 +6,10 @@ import lombok.Data;
 public class MemberSearchCondition {
 
     private String username;
+    //username 인덱스 범위 검색
+    private String usernameStartsWith;
+    //3글자 이상이면 member_trigram 으로 후보를 좁히고, 더 짧으면 like 로 전체를 본다
+    private String usernameContains;
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
@@ -0,0 +1,38 @@
+package com.example.querydsl.dto;
+
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * 팀별 통계와 전체 합계.
+ * 전체 합계는 쿼리를 한 번 더 실행하지 않고 팀별 결과로 계산한다. (평균은 회원 수로 가중 평균)
+ */
+@Getter
+public class TeamStatsResponse {
+
+    private final List<TeamStatsDto> teams;
+    private final TeamStatsDto total;
+
+    public TeamStatsResponse(List<TeamStatsDto> teams) {
+        this.teams = teams;
+        this.total = rollup(teams);
+    }
+
+    private static TeamStatsDto rollup(List<TeamStatsDto> teams) {
+        long count = 0;
+        double ageSum = 0;
+        Integer min = null;
+        Integer max = null;
+        for (TeamStatsDto team : teams) {
+            //회원이 없는 팀(요약 테이블)은 평균/최소/최대가 없다
+            if (team.getMemberCount() == 0) {
+                continue;
+            }
+            count += team.getMemberCount();
+            ageSum += team.getAvgAge() * team.getMemberCount();
+            min = min == null ? team.getMinAge() : Math.min(min, team.getMinAge());
+            max = max == null ? team.getMaxAge() : Math.max(max, team.getMaxAge());
+        }
+        return new TeamStatsDto(null, null, count, count == 0 ? null : ageSum / count, min, max);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.querydsl.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+
+@Getter
+public class TeamSummaryReconcileResult {
+
+    //응답이 커지지 않도록 어긋난 팀 id 는 앞쪽 일부만 담는다
+    private static final int MAX_DRIFTED_IDS = 100;
+
+    private long teamsChecked;
+    private long driftedTeams;
+    private long missingRows;
+    private long orphanRows;
+    private long elapsedMillis;
+    private final List<Long> driftedTeamIds = new ArrayList<>();
+
+    public void checked(int teams) {
+        teamsChecked += teams;
+    }
+
+    public void drifted(Long teamId) {
+        driftedTeams++;
+        addDriftedId(teamId);
+    }
+
+    public void missing(Long teamId) {
+        missingRows++;
+        addDriftedId(teamId);
+    }
+
+    public void orphansRemoved(long rows) {
+        orphanRows += rows;
+    }
+
+    public void finish(long elapsedNanos) {
+        this.elapsedMillis = elapsedNanos / 1_000_000;
+    }
+
+    public long getTotalDrift() {
+        return driftedTeams + missingRows + orphanRows;
+    }
+
+    private void addDriftedId(Long teamId) {
+        if (driftedTeamIds.size() < MAX_DRIFTED_IDS) {
+            driftedTeamIds.add(teamId);
+        }
+    }
+}
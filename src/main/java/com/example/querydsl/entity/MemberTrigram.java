@@ -0,0 +1,67 @@
+package com.example.querydsl.entity;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * username 의 연속된 3글자(trigram)마다 한 row. usernameContains 검색에서
+ * 검색어의 trigram 을 모두 가진 회원만 후보로 골라 like 를 적용할 row 수를 줄인다.
+ * MemberTrigramListener 가 회원 저장/username 변경/삭제 때 함께 갱신한다.
+ * PK 는 (member_id, trigram) 순으로 만들어지므로 trigram 으로 찾는 인덱스를 따로 둔다.
+ */
+@Entity
+@IdClass(MemberTrigram.Key.class)
+@Table(indexes = @Index(name = "idx_member_trigram", columnList = "trigram, member_id"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class MemberTrigram {
+
+    public static final int LENGTH = 3;
+
+    @Id
+    @Column(length = LENGTH)
+    private String trigram;
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    public MemberTrigram(String trigram, Long memberId) {
+        this.trigram = trigram;
+        this.memberId = memberId;
+    }
+
+    //"member1" -> [mem, emb, mbe, ber, er1], 3글자보다 짧으면 빈 집합
+    public static Set<String> trigrams(String text) {
+        if (text == null || text.length() < LENGTH) {
+            return Collections.emptySet();
+        }
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + LENGTH <= text.length(); i++) {
+            trigrams.add(text.substring(i, i + LENGTH));
+        }
+        return trigrams;
+    }
+
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String trigram;
+        private Long memberId;
+    }
+}
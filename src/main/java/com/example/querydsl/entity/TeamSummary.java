@@ -0,0 +1,58 @@
+package com.example.querydsl.entity;
+
+import com.example.querydsl.dto.TeamStatsDto;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 팀별 회원 수 / 나이 합계 / 최소·최대 나이.
+ * 회원 변경이 있는 트랜잭션 안에서 TeamSummaryListener 가 JDBC 로 갱신하고, TeamSummaryReconciler 가 주기적으로 맞춘다.
+ * Team 과 연관관계를 두지 않아 팀 삭제/회원 변경 순서에 FK 제약이 끼어들지 않는다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamSummary {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+    private long memberCount;
+    private long ageSum;
+    private Integer minAge;
+    private Integer maxAge;
+
+    public TeamSummary(Long teamId, long memberCount, long ageSum, Integer minAge, Integer maxAge) {
+        this.teamId = teamId;
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+    }
+
+    public boolean matches(long memberCount, long ageSum, Integer minAge, Integer maxAge) {
+        return this.memberCount == memberCount
+                && this.ageSum == ageSum
+                && Objects.equals(this.minAge, minAge)
+                && Objects.equals(this.maxAge, maxAge);
+    }
+
+    public void reset(long memberCount, long ageSum, Integer minAge, Integer maxAge) {
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+    }
+
+    public TeamStatsDto toStats(String teamName) {
+        Double avgAge = memberCount == 0 ? null : (double) ageSum / memberCount;
+        return new TeamStatsDto(teamId, teamName, memberCount, avgAge, minAge, maxAge);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.querydsl.event;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * flush 시점에 엔티티 insert/update/delete 를 받아보는 Hibernate 리스너의 공통 부분.
+ * 스프링 빈으로 등록되면 스스로 Hibernate EventListenerRegistry 에 붙는다.
+ * 벌크 연산(JPQL update/delete)은 엔티티 이벤트가 발생하지 않으므로 여기로 들어오지 않는다.
+ */
+public abstract class EntityWriteListener
+        implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    protected static final Object UNKNOWN = new Object();
+
+    @PersistenceUnit
+    private EntityManagerFactory emf;
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = listenerRegistry();
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    //insert/update/delete 외의 이벤트가 필요한 리스너용
+    protected EventListenerRegistry listenerRegistry() {
+        return emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+    }
+
+    //커밋 이후 콜백은 쓰지 않는다 (Hibernate 버전에 따라 둘 중 하나가 호출된다)
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * update 이전 값. 스냅샷이 없으면(old state 를 모르는 update) UNKNOWN 을 반환한다.
+     */
+    protected static Object oldValue(PostUpdateEvent event, String property) {
+        if (event.getOldState() == null) {
+            return UNKNOWN;
+        }
+        return event.getOldState()[event.getPersister().getEntityMetamodel().getPropertyIndex(property)];
+    }
+
+    protected static Object newValue(PostUpdateEvent event, String property) {
+        return event.getState()[event.getPersister().getEntityMetamodel().getPropertyIndex(property)];
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.example.querydsl.event;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import java.util.HashSet;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Member/Team 엔티티 변경을 영향받는 팀 이름 단위로 MemberChangePublisher 에 전달한다.
+ * 팀이 초기화되지 않은 프록시라 이름을 알 수 없으면 전체 변경으로 취급한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberChangeListener extends EntityWriteListener {
+
+    private final MemberChangePublisher publisher;
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            changed(((Member) event.getEntity()).getTeam());
+        }
+        //새 팀은 아직 소속 회원이 없어 검색 결과가 달라지지 않는다
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member) {
+            //팀 이동(changeTeam)이면 이전 팀과 새 팀 모두 영향을 받는다
+            changed(oldValue(event, "team"), newValue(event, "team"));
+        } else if (event.getEntity() instanceof Team) {
+            Object oldName = oldValue(event, "name");
+            if (oldName == UNKNOWN) {
+                publisher.allChanged();
+                return;
+            }
+            Set<String> teamNames = new HashSet<>();
+            addIfNotNull(teamNames, (String) oldName);
+            addIfNotNull(teamNames, (String) newValue(event, "name"));
+            publisher.teamsChanged(teamNames);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            changed(((Member) event.getEntity()).getTeam());
+        } else if (event.getEntity() instanceof Team) {
+            Set<String> teamNames = new HashSet<>();
+            addIfNotNull(teamNames, ((Team) event.getEntity()).getName());
+            publisher.teamsChanged(teamNames);
+        }
+    }
+
+    private void changed(Object... teams) {
+        Set<String> teamNames = new HashSet<>();
+        for (Object team : teams) {
+            if (team == UNKNOWN || (team != null && !Hibernate.isInitialized(team))) {
+                publisher.allChanged();
+                return;
+            }
+            if (team != null) {
+                addIfNotNull(teamNames, ((Team) team).getName());
+            }
+        }
+        //팀이 없는 회원이어도 teamName 조건 없는 검색 결과는 바뀌므로 빈 집합으로라도 알린다
+        publisher.teamsChanged(teamNames);
+    }
+
+    private static void addIfNotNull(Set<String> teamNames, String teamName) {
+        if (teamName != null) {
+            teamNames.add(teamName);
+        }
+    }
+}
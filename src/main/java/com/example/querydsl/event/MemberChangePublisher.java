@@ -0,0 +1,68 @@
+package com.example.querydsl.event;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 트랜잭션 안에서 일어난 회원/팀 변경을 모아 두었다가 커밋 후에 MemberChangedEvent 하나로 발행한다.
+ * 롤백되면 아무것도 발행하지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberChangePublisher {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public void teamsChanged(Collection<String> teamNames) {
+        PendingChanges pending = currentPending();
+        if (pending == null) {
+            eventPublisher.publishEvent(MemberChangedEvent.teams(new HashSet<>(teamNames)));
+            return;
+        }
+        pending.teamNames.addAll(teamNames);
+    }
+
+    public void allChanged() {
+        PendingChanges pending = currentPending();
+        if (pending == null) {
+            eventPublisher.publishEvent(MemberChangedEvent.all());
+            return;
+        }
+        pending.allTeams = true;
+    }
+
+    private PendingChanges currentPending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    private class PendingChanges implements TransactionSynchronization {
+
+        private final Set<String> teamNames = new HashSet<>();
+        private boolean allTeams;
+
+        @Override
+        public void afterCommit() {
+            eventPublisher.publishEvent(allTeams ? MemberChangedEvent.all() : MemberChangedEvent.teams(teamNames));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(MemberChangePublisher.this);
+        }
+    }
+}
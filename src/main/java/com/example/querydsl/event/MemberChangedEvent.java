@@ -0,0 +1,34 @@
+package com.example.querydsl.event;
+
+import java.util.Collections;
+import java.util.Set;
+import lombok.Getter;
+
+/**
+ * 커밋된 트랜잭션에서 회원 검색 결과가 바뀌었을 수 있음을 알린다.
+ * teamNames 는 영향을 받은 팀 이름이고, 어떤 팀인지 알 수 없는 변경(벌크 연산 등)은 allTeams 로 표시한다.
+ */
+@Getter
+public class MemberChangedEvent {
+
+    private final Set<String> teamNames;
+    private final boolean allTeams;
+
+    private MemberChangedEvent(Set<String> teamNames, boolean allTeams) {
+        this.teamNames = Collections.unmodifiableSet(teamNames);
+        this.allTeams = allTeams;
+    }
+
+    public static MemberChangedEvent teams(Set<String> teamNames) {
+        return new MemberChangedEvent(teamNames, false);
+    }
+
+    public static MemberChangedEvent all() {
+        return new MemberChangedEvent(Collections.emptySet(), true);
+    }
+
+    //teamName 조건으로 걸러진 검색 결과가 이 변경의 영향을 받는지
+    public boolean affects(String teamName) {
+        return allTeams || teamName == null || teamNames.contains(teamName);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.querydsl.event;
+
+import static org.springframework.util.StringUtils.hasText;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 커밋된 회원/팀 변경(MemberChangedEvent)마다 올라가는 데이터 버전.
+ * save, changeTeam 같은 엔티티 변경은 MemberChangeListener 가, 벌크 연산은 repository 가 이벤트를 낸다.
+ * teamName 조건이 있는 검색은 그 팀(또는 전체) 변경에만, 없는 검색은 모든 변경에 버전이 바뀐다.
+ * 버전은 이 JVM 안에서만 의미가 있으므로 ETag 에 기동 시각(epoch)을 같이 넣어 재시작 후 잘못된 304 를 막는다.
+ */
+@Component
+public class MemberDataVersion {
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong sequence = new AtomicLong();
+    //어떤 변경이든 마지막 버전
+    private volatile long anyVersion;
+    //팀을 알 수 없는 변경(벌크 연산 등)의 마지막 버전
+    private volatile long allTeamsVersion;
+    private final Map<String, Long> teamVersions = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void on(MemberChangedEvent event) {
+        long version = sequence.incrementAndGet();
+        if (event.isAllTeams()) {
+            allTeamsVersion = version;
+        }
+        for (String teamName : event.getTeamNames()) {
+            teamVersions.put(teamName, version);
+        }
+        anyVersion = version;
+    }
+
+    //쿼리를 실행하기 전에 읽어야 한다. 조회 도중 커밋된 변경은 다음 요청에서 새 버전으로 잡힌다
+    public long versionOf(MemberSearchCondition condition) {
+        if (!hasText(condition.getTeamName())) {
+            return anyVersion;
+        }
+        return Math.max(allTeamsVersion, teamVersions.getOrDefault(condition.getTeamName(), 0L));
+    }
+
+    /**
+     * 검색 조건 + 응답 표현(Accept) + 데이터 버전으로 만든 weak ETag.
+     * 같은 조건이라도 다른 포맷으로 받은 응답과 섞이지 않게 representation 을 넣는다.
+     */
+    public String etag(MemberSearchCondition condition, String representation) {
+        int conditionHash = Objects.hash(
+                hasText(condition.getUsername()) ? condition.getUsername() : null,
+                hasText(condition.getUsernameStartsWith()) ? condition.getUsernameStartsWith() : null,
+                hasText(condition.getUsernameContains()) ? condition.getUsernameContains() : null,
+                hasText(condition.getTeamName()) ? condition.getTeamName() : null,
+                condition.getAgeGoe(),
+                condition.getAgeLoe(),
+                representation);
+        return "W/\"" + Long.toString(epoch, 36)
+                + "-" + Long.toString(versionOf(condition), 36)
+                + "-" + Integer.toHexString(conditionHash) + "\"";
+    }
+}
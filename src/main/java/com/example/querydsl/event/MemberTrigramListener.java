@@ -0,0 +1,182 @@
+package com.example.querydsl.event;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.MemberTrigram;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.PostConstruct;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.event.spi.AutoFlushEvent;
+import org.hibernate.event.spi.AutoFlushEventListener;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.FlushEvent;
+import org.hibernate.event.spi.FlushEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * 회원 저장/username 변경/삭제 때 member_trigram 을 갱신한다.
+ * 엔티티마다 바로 쓰지 않고 세션별로 모았다가 flush(쿼리 전 auto flush 포함)가 끝날 때 한 번에 JDBC batch 로 쓴다.
+ * flush 단위로 반영되므로 같은 트랜잭션의 usernameContains 검색에도 바로 보이고,
+ * 남은 것이 있으면 커밋 직전에 한 번 더 쓴다.
+ * 벌크 update 로 username 을 바꾸면 이벤트가 없으므로 MemberJpaRepository 가 해당 id 범위를 다시 만든다.
+ * 벌크 delete 로 지운 회원의 trigram 은 남지만 없는 member_id 라 검색 결과에는 영향이 없다.
+ */
+@Component
+public class MemberTrigramListener extends EntityWriteListener implements FlushEventListener, AutoFlushEventListener {
+
+    private static final String INSERT = "insert into member_trigram (trigram, member_id) values (?, ?)";
+    private static final String DELETE = "delete from member_trigram where member_id = ?";
+    private static final int BATCH_SIZE = 1000;
+
+    private final Map<EventSource, Pending> pending = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void registerFlushListeners() {
+        listenerRegistry().appendListeners(EventType.FLUSH, (FlushEventListener) this);
+        listenerRegistry().appendListeners(EventType.AUTO_FLUSH, (AutoFlushEventListener) this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            //새 회원은 지울 trigram 이 없다
+            pending(event.getSession()).insert((Long) event.getId(), ((Member) event.getEntity()).getUsername());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        Object oldUsername = oldValue(event, "username");
+        Object username = newValue(event, "username");
+        //이전 값을 모르면 다시 만든다
+        if (oldUsername != UNKNOWN && Objects.equals(oldUsername, username)) {
+            return;
+        }
+        Pending pending = pending(event.getSession());
+        pending.delete((Long) event.getId());
+        pending.insert((Long) event.getId(), (String) username);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            pending(event.getSession()).delete((Long) event.getId());
+        }
+    }
+
+    //기본 flush 리스너 뒤에 붙으므로 이 flush 의 엔티티 이벤트가 모두 모인 뒤에 호출된다
+    @Override
+    public void onFlush(FlushEvent event) {
+        write(event.getSession());
+    }
+
+    @Override
+    public void onAutoFlush(AutoFlushEvent event) {
+        write(event.getSession());
+    }
+
+    private Pending pending(EventSource session) {
+        return pending.computeIfAbsent(session, s -> {
+            s.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) completing -> write(s));
+            //롤백되면 쓰지 못한 것은 버린다
+            s.getActionQueue().registerProcess(
+                    (AfterTransactionCompletionProcess) (success, completed) -> pending.remove(s));
+            return new Pending();
+        });
+    }
+
+    private void write(EventSource session) {
+        Pending rows = pending.get(session);
+        if (rows == null || rows.isEmpty()) {
+            return;
+        }
+        session.doWork(connection -> {
+            deleteAll(connection, rows.deletes);
+            insertAll(connection, rows.inserts);
+        });
+        rows.clear();
+    }
+
+    private static void deleteAll(Connection connection, Set<Long> memberIds) throws SQLException {
+        if (memberIds.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement delete = connection.prepareStatement(DELETE)) {
+            int count = 0;
+            for (Long memberId : memberIds) {
+                delete.setLong(1, memberId);
+                delete.addBatch();
+                if (++count % BATCH_SIZE == 0) {
+                    delete.executeBatch();
+                }
+            }
+            delete.executeBatch();
+        }
+    }
+
+    private static void insertAll(Connection connection, Map<Long, Set<String>> inserts) throws SQLException {
+        if (inserts.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            int count = 0;
+            for (Map.Entry<Long, Set<String>> entry : inserts.entrySet()) {
+                for (String trigram : entry.getValue()) {
+                    insert.setString(1, trigram);
+                    insert.setLong(2, entry.getKey());
+                    insert.addBatch();
+                    if (++count % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                }
+            }
+            insert.executeBatch();
+        }
+    }
+
+    //delete 를 먼저 실행하고 insert 를 실행한다
+    private static class Pending {
+
+        private final Set<Long> deletes = new HashSet<>();
+        private final Map<Long, Set<String>> inserts = new HashMap<>();
+
+        void insert(Long memberId, String username) {
+            Set<String> trigrams = MemberTrigram.trigrams(username);
+            if (trigrams.isEmpty()) {
+                inserts.remove(memberId);
+            } else {
+                inserts.put(memberId, trigrams);
+            }
+        }
+
+        //아직 쓰지 않은 insert 도 함께 취소한다 (같은 flush 에서 저장 후 삭제)
+        void delete(Long memberId) {
+            inserts.remove(memberId);
+            deletes.add(memberId);
+        }
+
+        boolean isEmpty() {
+            return deletes.isEmpty() && inserts.isEmpty();
+        }
+
+        void clear() {
+            deletes.clear();
+            inserts.clear();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.querydsl.event;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 회원 저장/팀 이동/삭제를 팀별 증감(회원 수, 나이 합계)으로 모았다가 커밋 직전에 team_summary 에 반영한다.
+ * 같은 트랜잭션에서 실행되므로 롤백되면 요약도 함께 롤백된다.
+ * 최소/최대 나이는 증감으로 유지할 수 없어 변경된 팀만 idx_member_team_age 로 다시 구한다.
+ * 벌크 연산은 이벤트가 없으므로 reconcile 이 필요하다고 표시만 하고 TeamSummaryReconciler 가 맞춘다.
+ */
+@Component
+public class TeamSummaryListener extends EntityWriteListener {
+
+    private static final String APPLY_DELTA = "update team_summary"
+            + " set member_count = member_count + ?, age_sum = age_sum + ?,"
+            + " min_age = (select min(age) from member where team_id = ?),"
+            + " max_age = (select max(age) from member where team_id = ?)"
+            + " where team_id = ?";
+    /**
+     * 기능 도입 전부터 있던 팀이라 요약 row 가 없으면 회원 테이블에서 새로 만든다. (TeamSummaryReconciler 도 사용)
+     * reconcile 이 같은 팀의 row 를 동시에 만들 수 있으므로 insert 대신 merge 로 써서 PK 충돌 없이 절대값으로 맞춘다.
+     */
+    public static final String MERGE_FROM_MEMBERS = "merge into team_summary"
+            + " (team_id, member_count, age_sum, min_age, max_age) key (team_id)"
+            + " select ?, count(*), coalesce(sum(age), 0), min(age), max(age) from member where team_id = ?";
+    private static final String INSERT_EMPTY = "insert into team_summary"
+            + " (team_id, member_count, age_sum, min_age, max_age) values (?, 0, 0, null, null)";
+    private static final String DELETE = "delete from team_summary where team_id = ?";
+    private static final String DELETE_ORPHANS = "delete from team_summary"
+            + " where team_id not in (select team_id from team)";
+    private static final String REBUILD_ALL = "merge into team_summary"
+            + " (team_id, member_count, age_sum, min_age, max_age) key (team_id)"
+            + " select t.team_id, count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age)"
+            + " from team t left join member m on m.team_id = t.team_id group by t.team_id";
+
+    //세션(=트랜잭션)별로 모은 증감
+    private final Map<EventSource, Deltas> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean reconcileRequired = new AtomicBoolean();
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Member member = (Member) event.getEntity();
+            deltas(event.getSession()).add(teamId(member.getTeam()), 1, member.getAge());
+        } else if (event.getEntity() instanceof Team) {
+            deltas(event.getSession()).created.add(((Team) event.getEntity()).getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        Object oldTeam = oldValue(event, "team");
+        Object oldAge = oldValue(event, "age");
+        Deltas deltas = deltas(event.getSession());
+        if (oldTeam == UNKNOWN || oldAge == UNKNOWN) {
+            //이전 팀을 모르면 어느 팀에서 빠졌는지 알 수 없다
+            deltas.rebuildAll = true;
+            return;
+        }
+        Long oldTeamId = teamId(oldTeam);
+        Long newTeamId = teamId(newValue(event, "team"));
+        int previousAge = (Integer) oldAge;
+        int age = (Integer) newValue(event, "age");
+        //이름만 바뀐 경우처럼 팀과 나이가 그대로면 요약도 그대로다
+        if (Objects.equals(oldTeamId, newTeamId) && previousAge == age) {
+            return;
+        }
+        //팀 이동은 이전 팀에서 빼고 새 팀에 더한다 (같은 팀이면 나이 차이만 남는다)
+        deltas.add(oldTeamId, -1, -previousAge);
+        deltas.add(newTeamId, 1, age);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Member member = (Member) event.getEntity();
+            deltas(event.getSession()).add(teamId(member.getTeam()), -1, -member.getAge());
+        } else if (event.getEntity() instanceof Team) {
+            deltas(event.getSession()).deleted.add(((Team) event.getEntity()).getId());
+        }
+    }
+
+    //벌크 update/delete 는 요약에 반영되지 않는다
+    @EventListener
+    public void on(MemberChangedEvent event) {
+        if (event.isAllTeams()) {
+            reconcileRequired.set(true);
+        }
+    }
+
+    //reconcile 이 필요한 상태였으면 true 를 반환하고 표시를 지운다
+    public boolean takeReconcileRequired() {
+        return reconcileRequired.getAndSet(false);
+    }
+
+    private Deltas deltas(EventSource session) {
+        return pending.computeIfAbsent(session, s -> {
+            s.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::apply);
+            //롤백되면 before 콜백이 호출되지 않으므로 여기서 정리한다
+            s.getActionQueue().registerProcess(
+                    (AfterTransactionCompletionProcess) (success, completed) -> pending.remove(s));
+            return new Deltas();
+        });
+    }
+
+    private void apply(SessionImplementor session) {
+        Deltas deltas = pending.remove(session);
+        if (deltas == null || deltas.isEmpty()) {
+            return;
+        }
+        session.doWork(connection -> {
+            if (deltas.rebuildAll) {
+                rebuildAll(connection);
+                return;
+            }
+            for (Long teamId : deltas.created) {
+                update(connection, INSERT_EMPTY, teamId);
+            }
+            for (Map.Entry<Long, long[]> entry : deltas.changes.entrySet()) {
+                Long teamId = entry.getKey();
+                if (deltas.deleted.contains(teamId)) {
+                    continue;
+                }
+                long[] change = entry.getValue();
+                if (applyDelta(connection, teamId, change[0], change[1]) == 0) {
+                    update(connection, MERGE_FROM_MEMBERS, teamId, teamId);
+                }
+            }
+            for (Long teamId : deltas.deleted) {
+                update(connection, DELETE, teamId);
+            }
+        });
+    }
+
+    private static int applyDelta(Connection connection, Long teamId, long count, long ageSum) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(APPLY_DELTA)) {
+            statement.setLong(1, count);
+            statement.setLong(2, ageSum);
+            statement.setLong(3, teamId);
+            statement.setLong(4, teamId);
+            statement.setLong(5, teamId);
+            return statement.executeUpdate();
+        }
+    }
+
+    private static void rebuildAll(Connection connection) throws SQLException {
+        update(connection, REBUILD_ALL);
+        update(connection, DELETE_ORPHANS);
+    }
+
+    private static int update(Connection connection, String sql, Long... params) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                statement.setLong(i + 1, params[i]);
+            }
+            return statement.executeUpdate();
+        }
+    }
+
+    //프록시를 초기화하지 않고 id 만 꺼낸다
+    private static Long teamId(Object team) {
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+
+    private static class Deltas {
+
+        //teamId -> {회원 수 증감, 나이 합계 증감}
+        private final Map<Long, long[]> changes = new HashMap<>();
+        private final Set<Long> created = new HashSet<>();
+        private final Set<Long> deleted = new HashSet<>();
+        private boolean rebuildAll;
+
+        void add(Long teamId, long count, long ageSum) {
+            if (teamId == null) {
+                return;
+            }
+            long[] change = changes.computeIfAbsent(teamId, id -> new long[2]);
+            change[0] += count;
+            change[1] += ageSum;
+        }
+
+        boolean isEmpty() {
+            return changes.isEmpty() && created.isEmpty() && deleted.isEmpty() && !rebuildAll;
+        }
+    }
+}
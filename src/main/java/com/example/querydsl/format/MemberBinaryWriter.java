@@ -0,0 +1,56 @@
+package com.example.querydsl.format;
+
+import com.example.querydsl.dto.MemberTeamDto;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 길이 접두어 방식의 바이너리 포맷 (big-endian, java.io.DataInput 으로 그대로 읽을 수 있다).
+ * <pre>
+ * int    rows
+ * rows 번 반복
+ *   long   memberId   (null 이면 -1)
+ *   string username
+ *   int    age
+ *   long   teamId     (팀이 없으면 -1)
+ *   string teamName
+ *
+ * string = int 바이트 길이 (null 이면 -1) + UTF-8 바이트
+ * </pre>
+ */
+public final class MemberBinaryWriter {
+
+    private static final long NULL_ID = -1L;
+    private static final int NULL_STRING = -1;
+
+    private MemberBinaryWriter() {
+    }
+
+    public static void write(List<MemberTeamDto> rows, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(rows.size());
+        for (MemberTeamDto row : rows) {
+            data.writeLong(row.getMemberId() == null ? NULL_ID : row.getMemberId());
+            writeString(data, row.getUsername());
+            data.writeInt(row.getAge());
+            data.writeLong(row.getTeamId() == null ? NULL_ID : row.getTeamId());
+            writeString(data, row.getTeamName());
+        }
+        //응답 스트림은 컨테이너가 닫으므로 close 하지 않고 버퍼만 내보낸다
+        data.flush();
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        if (value == null) {
+            data.writeInt(NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+}
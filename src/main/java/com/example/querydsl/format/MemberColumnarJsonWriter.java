@@ -0,0 +1,70 @@
+package com.example.querydsl.format;
+
+import com.example.querydsl.dto.MemberTeamDto;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * 필드 이름을 row 마다 반복하지 않고 필드별 배열 하나씩으로 쓴다. i 번째 row 는 각 배열의 i 번째 값.
+ * <pre>
+ * {"count":2,"memberId":[1,2],"username":["member1","member2"],"age":[10,20],"teamId":[1,null],"teamName":["teamA",null]}
+ * </pre>
+ */
+public final class MemberColumnarJsonWriter {
+
+    private MemberColumnarJsonWriter() {
+    }
+
+    public static void write(JsonFactory jsonFactory, List<MemberTeamDto> rows, OutputStream out) throws IOException {
+        try (JsonGenerator json = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            //응답 스트림은 컨테이너가 닫는다
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartObject();
+            json.writeNumberField("count", rows.size());
+
+            json.writeArrayFieldStart("memberId");
+            for (MemberTeamDto row : rows) {
+                writeNullable(json, row.getMemberId());
+            }
+            json.writeEndArray();
+
+            json.writeArrayFieldStart("username");
+            for (MemberTeamDto row : rows) {
+                json.writeString(row.getUsername());
+            }
+            json.writeEndArray();
+
+            json.writeArrayFieldStart("age");
+            for (MemberTeamDto row : rows) {
+                json.writeNumber(row.getAge());
+            }
+            json.writeEndArray();
+
+            json.writeArrayFieldStart("teamId");
+            for (MemberTeamDto row : rows) {
+                writeNullable(json, row.getTeamId());
+            }
+            json.writeEndArray();
+
+            json.writeArrayFieldStart("teamName");
+            for (MemberTeamDto row : rows) {
+                json.writeString(row.getTeamName());
+            }
+            json.writeEndArray();
+
+            json.writeEndObject();
+        }
+    }
+
+    private static void writeNullable(JsonGenerator json, Long value) throws IOException {
+        if (value == null) {
+            json.writeNull();
+        } else {
+            json.writeNumber(value);
+        }
+    }
+}
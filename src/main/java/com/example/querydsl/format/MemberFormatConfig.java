@@ -0,0 +1,26 @@
+package com.example.querydsl.format;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Accept 헤더로 검색 결과 포맷을 고른다.
+ * 기본 JSON 컨버터 뒤에 붙여야 Accept 가 없거나 *&#47;* 일 때 지금처럼 application/json 으로 응답한다.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class MemberFormatConfig implements WebMvcConfigurer {
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MemberTeamListConverter(MemberMediaTypes.COLUMNAR_JSON,
+                (rows, out) -> MemberColumnarJsonWriter.write(objectMapper.getFactory(), rows, out)));
+        converters.add(new MemberTeamListConverter(MemberMediaTypes.BINARY, MemberBinaryWriter::write));
+    }
+}
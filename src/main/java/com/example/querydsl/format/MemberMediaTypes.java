@@ -0,0 +1,19 @@
+package com.example.querydsl.format;
+
+import org.springframework.http.MediaType;
+
+/**
+ * 검색 결과(List<MemberTeamDto>)를 Accept 헤더로 고를 수 있는 압축 포맷.
+ * +json 접미사를 붙이면 기본 Jackson 컨버터(application/*+json)가 먼저 가져가므로 쓰지 않는다.
+ */
+public final class MemberMediaTypes {
+
+    public static final String COLUMNAR_JSON_VALUE = "application/x-member-columnar-json";
+    public static final String BINARY_VALUE = "application/x-member-binary";
+
+    public static final MediaType COLUMNAR_JSON = MediaType.parseMediaType(COLUMNAR_JSON_VALUE);
+    public static final MediaType BINARY = MediaType.parseMediaType(BINARY_VALUE);
+
+    private MemberMediaTypes() {
+    }
+}
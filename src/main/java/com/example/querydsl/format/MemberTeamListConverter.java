@@ -0,0 +1,76 @@
+package com.example.querydsl.format;
+
+import com.example.querydsl.dto.MemberTeamDto;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+//List<MemberTeamDto> 반환값만 지정한 media type 으로 쓴다 (읽기는 지원하지 않는다)
+public class MemberTeamListConverter extends AbstractGenericHttpMessageConverter<List<MemberTeamDto>> {
+
+    private final RowsWriter writer;
+
+    public MemberTeamListConverter(MediaType mediaType, RowsWriter writer) {
+        super(mediaType);
+        this.writer = writer;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return isMemberTeamList(type) && canWrite(mediaType);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected void writeInternal(List<MemberTeamDto> rows, Type type, HttpOutputMessage outputMessage)
+            throws IOException {
+        writer.write(rows, outputMessage.getBody());
+    }
+
+    @Override
+    public List<MemberTeamDto> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("read is not supported", inputMessage);
+    }
+
+    @Override
+    protected List<MemberTeamDto> readInternal(Class<? extends List<MemberTeamDto>> clazz,
+                                               HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("read is not supported", inputMessage);
+    }
+
+    private static boolean isMemberTeamList(Type type) {
+        if (!(type instanceof ParameterizedType)) {
+            return false;
+        }
+        ParameterizedType parameterized = (ParameterizedType) type;
+        return parameterized.getRawType() instanceof Class
+                && List.class.isAssignableFrom((Class<?>) parameterized.getRawType())
+                && parameterized.getActualTypeArguments()[0] == MemberTeamDto.class;
+    }
+
+    @FunctionalInterface
+    public interface RowsWriter {
+        void write(List<MemberTeamDto> rows, OutputStream out) throws IOException;
+    }
+}
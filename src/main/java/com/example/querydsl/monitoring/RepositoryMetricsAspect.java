@@ -0,0 +1,147 @@
+package com.example.querydsl.monitoring;
+
+import com.example.querydsl.dto.MemberCursorPage;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.repository.MemberSearchShape;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+/**
+ * *JpaRepository 의 public 메서드 실행 시간과 반환 row 수를 기록한다.
+ * 검색 조건은 값이 아니라 어떤 필드가 채워졌는지(MemberSearchShape)만 태그로 남긴다.
+ * slow-query-millis 를 넘긴 호출은 sample-rate 비율로 그 호출에서 실행된 SQL 과 함께 로그를 남긴다.
+ * (SQL 은 ? 바인딩이라 값이 로그에 남지 않는다)
+ *
+ * <pre>
+ * repository.query{repository, method, shape}       실행 시간 (percentile histogram)
+ * repository.query.rows{repository, method, shape}  반환 row 수, Consumer 로 넘기는 스트리밍은 넘긴 건수
+ * </pre>
+ */
+@Slf4j
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    //MemberSearchCondition 을 받지 않는 메서드의 shape 태그
+    private static final String NO_CONDITION = "n/a";
+    private static final String SCOPE = "repository";
+
+    private final MeterRegistry meterRegistry;
+    private final SqlStatementCounter sqlStatementCounter;
+    private final long slowQueryNanos;
+    private final double slowQuerySampleRate;
+
+    public RepositoryMetricsAspect(MeterRegistry meterRegistry,
+                                   SqlStatementCounter sqlStatementCounter,
+                                   @Value("${member.metrics.slow-query-millis:200}") long slowQueryMillis,
+                                   @Value("${member.metrics.slow-query-sample-rate:0.1}") double slowQuerySampleRate) {
+        this.meterRegistry = meterRegistry;
+        this.sqlStatementCounter = sqlStatementCounter;
+        this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryMillis);
+        this.slowQuerySampleRate = slowQuerySampleRate;
+    }
+
+    @Around("execution(public * com.example.querydsl.repository.*JpaRepository.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        String repository = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        Object[] args = joinPoint.getArgs();
+        String shape = shapeOf(args);
+        LongAdder streamedRows = countConsumedRows(args);
+
+        try (SqlStatementScope scope = sqlStatementCounter.open(SCOPE)) {
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = joinPoint.proceed(args);
+            } catch (Throwable e) {
+                record(repository, method, shape, System.nanoTime() - start, -1);
+                throw e;
+            }
+            long elapsed = System.nanoTime() - start;
+            long rows = streamedRows != null ? streamedRows.sum() : rowsOf(result);
+            record(repository, method, shape, elapsed, rows);
+            if (elapsed >= slowQueryNanos && ThreadLocalRandom.current().nextDouble() < slowQuerySampleRate) {
+                log.warn("slow repository call {}.{} shape={} took {}ms rows={} sql={}",
+                        repository, method, shape, TimeUnit.NANOSECONDS.toMillis(elapsed), rows, scope.getStatements());
+            }
+            return result;
+        }
+    }
+
+    private void record(String repository, String method, String shape, long elapsedNanos, long rows) {
+        Timer.builder("repository.query")
+                .tag("repository", repository)
+                .tag("method", method)
+                .tag("shape", shape)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (rows >= 0) {
+            DistributionSummary.builder("repository.query.rows")
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .tag("shape", shape)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(rows);
+        }
+    }
+
+    private static String shapeOf(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof MemberSearchCondition) {
+                return MemberSearchShape.describe(MemberSearchShape.of((MemberSearchCondition) arg));
+            }
+        }
+        return NO_CONDITION;
+    }
+
+    //streamByWhere 처럼 결과를 Consumer 로 넘기는 메서드는 Consumer 를 감싸서 건수를 센다
+    @SuppressWarnings("unchecked")
+    private static LongAdder countConsumedRows(Object[] args) {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof Consumer) {
+                Consumer<Object> consumer = (Consumer<Object>) args[i];
+                LongAdder rows = new LongAdder();
+                args[i] = (Consumer<Object>) row -> {
+                    rows.increment();
+                    consumer.accept(row);
+                };
+                return rows;
+            }
+        }
+        return null;
+    }
+
+    //row 수를 알 수 없는 반환값(void, 벌크 연산 건수 등)은 -1
+    private static long rowsOf(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Page) {
+            return ((Page<?>) result).getNumberOfElements();
+        }
+        if (result instanceof MemberCursorPage) {
+            return ((MemberCursorPage) result).getContent().size();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        return -1;
+    }
+}
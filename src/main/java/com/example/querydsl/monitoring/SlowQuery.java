@@ -0,0 +1,28 @@
+package com.example.querydsl.monitoring;
+
+import java.time.Instant;
+import java.util.List;
+import lombok.Getter;
+
+//SlowQueryLog 의 한 항목. 바인딩 값은 남기지 않고 타입만 남긴다
+@Getter
+public class SlowQuery {
+
+    private final Instant executedAt;
+    private final long elapsedMillis;
+    private final String sql;
+    private final List<String> parameterTypes;
+    //EXPLAIN ANALYZE 는 비동기로 채워진다. 아직 실행 전이거나 대기열이 차서 건너뛰었으면 null
+    private volatile String plan;
+
+    SlowQuery(Instant executedAt, long elapsedMillis, String sql, List<String> parameterTypes) {
+        this.executedAt = executedAt;
+        this.elapsedMillis = elapsedMillis;
+        this.sql = sql;
+        this.parameterTypes = parameterTypes;
+    }
+
+    void setPlan(String plan) {
+        this.plan = plan;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.querydsl.monitoring;
+
+import javax.sql.DataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 애플리케이션이 쓰는 dataSource 빈(라우팅이 켜져 있으면 라우팅 DataSource)을 datasource-proxy 로 감싸서
+ * 느린 select 를 SlowQueryLog 에 남긴다. member.slow-query.enabled=false 로 끌 수 있다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "member.slow-query.enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryConfig {
+
+    private static final String DATA_SOURCE = "dataSource";
+
+    //BeanPostProcessor 는 다른 빈보다 먼저 만들어지므로 static 으로 두고 SlowQueryLog 는 감쌀 때 꺼낸다
+    @Bean
+    public static BeanPostProcessor slowQueryDataSourcePostProcessor(ObjectProvider<SlowQueryLog> slowQueryLog) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || !DATA_SOURCE.equals(beanName)) {
+                    return bean;
+                }
+                DataSource dataSource = (DataSource) bean;
+                return ProxyDataSourceBuilder.create(dataSource)
+                        .name("slow-query")
+                        .listener(new SlowQueryListener(slowQueryLog.getObject(), dataSource))
+                        .build();
+            }
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.querydsl.monitoring;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import javax.sql.DataSource;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+//JDBC 실행 시간이 threshold 를 넘긴 select 만 SlowQueryLog 에 넘긴다. 나머지는 시간 비교 한 번으로 끝난다
+class SlowQueryListener implements QueryExecutionListener {
+
+    //두 번째 인자가 값이 아니거나(스트림/Reader 는 이미 소비됨) 다시 바인딩할 수 없는 setter
+    private static final Set<String> NOT_REPLAYABLE = Set.of(
+            "setAsciiStream", "setBinaryStream", "setCharacterStream", "setNCharacterStream",
+            "setUnicodeStream", "setBlob", "setClob", "setNClob");
+
+    private final SlowQueryLog slowQueryLog;
+    private final DataSource explainDataSource;
+
+    SlowQueryListener(SlowQueryLog slowQueryLog, DataSource explainDataSource) {
+        this.slowQueryLog = slowQueryLog;
+        this.explainDataSource = explainDataSource;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.getElapsedTime() < slowQueryLog.getThresholdMillis()) {
+            return;
+        }
+        for (QueryInfo queryInfo : queryInfoList) {
+            String sql = queryInfo.getQuery().trim();
+            if (sql.regionMatches(true, 0, "select", 0, "select".length())) {
+                capture(sql, queryInfo, execInfo.getElapsedTime());
+            }
+        }
+    }
+
+    /**
+     * batch 가 아닌 PreparedStatement 의 setXxx 를 index 순서대로 모아 EXPLAIN ANALYZE 에 같은 값으로 넘긴다.
+     * setNull 은 두 번째 인자가 JDBC 타입 코드라 null 로 바꾸고, 같은 값으로 다시 실행할 수 없는 setter 가 있으면
+     * 다른 쿼리의 계획이 남지 않도록 계획 없이 남긴다.
+     */
+    private void capture(String sql, QueryInfo queryInfo, long elapsedMillis) {
+        List<Object> parameters = new ArrayList<>();
+        List<String> parameterTypes = new ArrayList<>();
+        boolean replayable = true;
+        if (!queryInfo.getParametersList().isEmpty()) {
+            List<ParameterSetOperation> operations = new ArrayList<>(queryInfo.getParametersList().get(0));
+            operations.sort(Comparator.comparingInt(operation -> (Integer) operation.getArgs()[0]));
+            for (ParameterSetOperation operation : operations) {
+                String method = operation.getMethod().getName();
+                Object[] args = operation.getArgs();
+                if (method.equals("setNull")) {
+                    parameters.add(null);
+                    parameterTypes.add("null");
+                } else if (NOT_REPLAYABLE.contains(method) || isCalendarVariant(method, args)) {
+                    replayable = false;
+                    parameters.add(null);
+                    parameterTypes.add(method);
+                } else {
+                    parameters.add(args[1]);
+                    parameterTypes.add(args[1] == null ? "null" : args[1].getClass().getSimpleName());
+                }
+            }
+        }
+        slowQueryLog.capture(explainDataSource, sql, parameters, parameterTypes, replayable, elapsedMillis);
+    }
+
+    //setDate/setTime/setTimestamp(index, value, Calendar) 는 Calendar 없이 다시 바인딩하면 값이 달라진다
+    private static boolean isCalendarVariant(String method, Object[] args) {
+        return args.length == 3
+                && (method.equals("setDate") || method.equals("setTime") || method.equals("setTimestamp"));
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.querydsl.monitoring;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * threshold 를 넘긴 select 를 최근 capacity 건까지 보관하는 링 버퍼.
+ * 각 항목의 실행 계획은 별도 스레드 하나에서 같은 SQL, 같은 값으로 EXPLAIN ANALYZE 를 돌려서 채운다.
+ * EXPLAIN ANALYZE 는 쿼리를 한 번 더 실행하므로 대기열이 차 있으면 계획 없이 남긴다.
+ */
+@Component
+public class SlowQueryLog {
+
+    private static final int EXPLAIN_QUEUE = 10;
+    static final String SKIPPED = "explain skipped: parameters bound by stream/reader/calendar cannot be replayed";
+
+    private final int capacity;
+    private final long thresholdMillis;
+    private final Deque<SlowQuery> entries = new ArrayDeque<>();
+    private final ThreadPoolExecutor explainer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(EXPLAIN_QUEUE), runnable -> {
+                Thread thread = new Thread(runnable, "slow-query-explain");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+
+    public SlowQueryLog(@Value("${member.slow-query.capacity:100}") int capacity,
+                        @Value("${member.slow-query.threshold-millis:100}") long thresholdMillis) {
+        this.capacity = capacity;
+        this.thresholdMillis = thresholdMillis;
+    }
+
+    public long getThresholdMillis() {
+        return thresholdMillis;
+    }
+
+    /**
+     * @param dataSource 계측되지 않은 원래 DataSource (EXPLAIN 자체가 다시 잡히지 않도록)
+     * @param replayable false 면 같은 값으로 다시 실행할 수 없어서 EXPLAIN ANALYZE 를 건너뛴다
+     */
+    void capture(DataSource dataSource, String sql, List<Object> parameters, List<String> parameterTypes,
+                 boolean replayable, long elapsedMillis) {
+        SlowQuery slowQuery = new SlowQuery(Instant.now(), elapsedMillis, sql, parameterTypes);
+        add(slowQuery);
+        if (!replayable) {
+            slowQuery.setPlan(SKIPPED);
+            return;
+        }
+        explainer.execute(() -> slowQuery.setPlan(explain(dataSource, sql, parameters)));
+    }
+
+    //최근 것부터
+    public synchronized List<SlowQuery> recent() {
+        return new ArrayList<>(entries);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private synchronized void add(SlowQuery slowQuery) {
+        if (entries.size() == capacity) {
+            entries.removeLast();
+        }
+        entries.addFirst(slowQuery);
+    }
+
+    private static String explain(DataSource dataSource, String sql, List<Object> parameters) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("explain analyze " + sql)) {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        } catch (SQLException e) {
+            return "explain failed: " + e.getMessage();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainer.shutdownNow();
+    }
+}
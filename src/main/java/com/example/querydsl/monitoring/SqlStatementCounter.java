@@ -0,0 +1,117 @@
+package com.example.querydsl.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Hibernate StatementInspector 로 실행되는 SQL 을 스레드별 SqlStatementScope 에 기록한다.
+ * HTTP 요청 범위는 SqlStatementCountFilter 가, 트랜잭션 범위는 트랜잭션 안의 첫 SQL 에서 자동으로 열린다.
+ * 범위가 닫힐 때 같은 모양의 select 가 threshold 번 이상 반복됐으면 N+1 의심으로 로그/메트릭을 남긴다.
+ *
+ * <pre>
+ * sql.statements{scope=request|transaction}        범위당 SQL 수
+ * sql.n_plus_one.suspected{scope=request|transaction} N+1 의심 건수
+ * </pre>
+ */
+@Slf4j
+@Component
+public class SqlStatementCounter implements StatementInspector {
+
+    public static final String REQUEST = "request";
+    public static final String TRANSACTION = "transaction";
+
+    private final ThreadLocal<SqlStatementScope> current = new ThreadLocal<>();
+    private final MeterRegistry meterRegistry;
+    private final int nPlusOneThreshold;
+
+    public SqlStatementCounter(MeterRegistry meterRegistry,
+                               @Value("${member.sql.n-plus-one-threshold:3}") int nPlusOneThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        openTransactionScopeIfNeeded();
+        SqlStatementScope scope = current.get();
+        if (scope != null) {
+            scope.record(sql);
+        }
+        return sql;
+    }
+
+    //try-with-resources 로 닫는다. 안쪽 범위의 SQL 은 바깥 범위에도 함께 집계된다
+    public SqlStatementScope open(String name) {
+        SqlStatementScope scope = new SqlStatementScope(name, current.get(), this);
+        current.set(scope);
+        return scope;
+    }
+
+    void close(SqlStatementScope scope) {
+        //트랜잭션 범위가 안쪽에서 늦게 열린 경우처럼 닫히는 순서가 뒤바뀌어도 열린 범위로 돌아간다
+        if (current.get() == scope) {
+            SqlStatementScope parent = scope.getParent();
+            while (parent != null && parent.isClosed()) {
+                parent = parent.getParent();
+            }
+            if (parent == null) {
+                current.remove();
+            } else {
+                current.set(parent);
+            }
+        }
+        if (!REQUEST.equals(scope.getName()) && !TRANSACTION.equals(scope.getName())) {
+            return;
+        }
+        DistributionSummary.builder("sql.statements")
+                .tag("scope", scope.getName())
+                .register(meterRegistry)
+                .record(scope.getCount());
+
+        for (Map.Entry<String, Integer> repeated : scope.getRepeatedSelects().entrySet()) {
+            if (repeated.getValue() >= nPlusOneThreshold) {
+                Counter.builder("sql.n_plus_one.suspected")
+                        .tag("scope", scope.getName())
+                        .register(meterRegistry)
+                        .increment();
+                log.warn("N+1 suspected in {}: same select executed {} times: {}",
+                        scope.getName(), repeated.getValue(), repeated.getKey());
+            }
+        }
+    }
+
+    private void openTransactionScopeIfNeeded() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof TransactionScopeSynchronization) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionScopeSynchronization(open(TRANSACTION)));
+    }
+
+    private static class TransactionScopeSynchronization implements TransactionSynchronization {
+
+        private final SqlStatementScope scope;
+
+        TransactionScopeSynchronization(SqlStatementScope scope) {
+            this.scope = scope;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            scope.close();
+        }
+    }
+}
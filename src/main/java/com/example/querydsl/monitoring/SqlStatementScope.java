@@ -0,0 +1,81 @@
+package com.example.querydsl.monitoring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 하나의 범위(HTTP 요청, 트랜잭션, 테스트 구간)에서 실행된 SQL 을 센다.
+ * Hibernate 는 값을 항상 ? 로 바인딩하므로 같은 SQL 문자열 = 같은 모양(shape) 의 쿼리다.
+ */
+public class SqlStatementScope implements AutoCloseable {
+
+    //진단용으로 앞에서부터 이만큼만 SQL 원문을 보관한다
+    private static final int MAX_STATEMENTS = 100;
+
+    private final String name;
+    private final SqlStatementScope parent;
+    private final SqlStatementCounter counter;
+    private final Map<String, Integer> shapes = new LinkedHashMap<>();
+    private final List<String> statements = new ArrayList<>();
+    private int count;
+    private boolean closed;
+
+    SqlStatementScope(String name, SqlStatementScope parent, SqlStatementCounter counter) {
+        this.name = name;
+        this.parent = parent;
+        this.counter = counter;
+    }
+
+    void record(String sql) {
+        if (!closed) {
+            count++;
+            shapes.merge(sql, 1, Integer::sum);
+            if (statements.size() < MAX_STATEMENTS) {
+                statements.add(sql);
+            }
+        }
+        if (parent != null) {
+            parent.record(sql);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public List<String> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    //같은 모양으로 두 번 이상 실행된 select (id 만 바뀌어 반복되는 N+1 후보) 와 실행 횟수
+    public Map<String, Integer> getRepeatedSelects() {
+        return shapes.entrySet().stream()
+                .filter(entry -> entry.getValue() > 1)
+                .filter(entry -> entry.getKey().regionMatches(true, 0, "select", 0, 6))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    SqlStatementScope getParent() {
+        return parent;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            counter.close(this);
+        }
+    }
+}
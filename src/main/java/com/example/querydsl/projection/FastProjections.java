@@ -0,0 +1,208 @@
+package com.example.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Visitor;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Projections.bean/fields/constructor 와 같은 용도지만 row 마다 리플렉션을 쓰지 않는다.
+ * DTO 타입과 프로퍼티(또는 생성자 파라미터) 조합별로 처음 한 번만 인스턴스 생성기를 만들어 캐시한다.
+ * <ul>
+ *     <li>bean: 기본 생성자 + setter 를 LambdaMetafactory 로 Supplier/BiConsumer 로 만든다</li>
+ *     <li>constructor: 생성자 MethodHandle 을 Object[] 를 받는 형태로 바꿔 둔다</li>
+ * </ul>
+ * 이름이 다르면 Projections.fields 처럼 as("name") 으로 맞춘다. @QueryProjection 없이도 쓸 수 있다.
+ */
+public final class FastProjections {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final Map<List<Object>, Instantiator> INSTANTIATORS = new ConcurrentHashMap<>();
+
+    private FastProjections() {
+    }
+
+    public static <T> FactoryExpression<T> bean(Class<? extends T> type, Expression<?>... args) {
+        List<String> properties = new ArrayList<>(args.length);
+        for (Expression<?> arg : args) {
+            properties.add(propertyName(arg));
+        }
+        Instantiator instantiator = INSTANTIATORS.computeIfAbsent(
+                List.of("bean", type, properties), key -> beanInstantiator(type, properties));
+        return new FastFactoryExpression<>(type, args, instantiator);
+    }
+
+    public static <T> FactoryExpression<T> constructor(Class<? extends T> type, Expression<?>... args) {
+        List<Class<?>> argTypes = new ArrayList<>(args.length);
+        for (Expression<?> arg : args) {
+            argTypes.add(arg.getType());
+        }
+        Instantiator instantiator = INSTANTIATORS.computeIfAbsent(
+                List.of("constructor", type, argTypes), key -> constructorInstantiator(type, argTypes));
+        return new FastFactoryExpression<>(type, args, instantiator);
+    }
+
+    @FunctionalInterface
+    interface Instantiator {
+        Object newInstance(Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Instantiator beanInstantiator(Class<?> type, List<String> properties) {
+        try {
+            MethodHandle constructor = LOOKUP.findConstructor(type, MethodType.methodType(void.class));
+            Supplier<Object> factory = (Supplier<Object>) LambdaMetafactory.metafactory(LOOKUP, "get",
+                    MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class),
+                    constructor,
+                    MethodType.methodType(type)).getTarget().invoke();
+
+            int size = properties.size();
+            BiConsumer<Object, Object>[] setters = new BiConsumer[size];
+            boolean[] primitives = new boolean[size];
+            for (int i = 0; i < size; i++) {
+                Method setter = findSetter(type, properties.get(i));
+                Class<?> parameterType = setter.getParameterTypes()[0];
+                primitives[i] = parameterType.isPrimitive();
+                setters[i] = (BiConsumer<Object, Object>) LambdaMetafactory.metafactory(LOOKUP, "accept",
+                        MethodType.methodType(BiConsumer.class),
+                        MethodType.methodType(void.class, Object.class, Object.class),
+                        LOOKUP.unreflect(setter),
+                        MethodType.methodType(void.class, type, MethodType.methodType(parameterType).wrap().returnType()))
+                        .getTarget().invoke();
+            }
+
+            return args -> {
+                Object bean = factory.get();
+                for (int i = 0; i < size; i++) {
+                    //primitive 프로퍼티에 null 이 오면 Projections.bean 처럼 기본값으로 둔다
+                    if (args[i] != null || !primitives[i]) {
+                        setters[i].accept(bean, args[i]);
+                    }
+                }
+                return bean;
+            };
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("cannot create bean projection for " + type.getName() + properties, e);
+        }
+    }
+
+    private static Instantiator constructorInstantiator(Class<?> type, List<Class<?>> argTypes) {
+        Constructor<?> constructor = findConstructor(type, argTypes);
+        int size = argTypes.size();
+        MethodHandle handle;
+        try {
+            handle = LOOKUP.unreflectConstructor(constructor)
+                    .asType(MethodType.genericMethodType(size))
+                    .asSpreader(Object[].class, size);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("cannot access constructor of " + type.getName(), e);
+        }
+        return args -> {
+            try {
+                return (Object) handle.invokeExact(args);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private static Method findSetter(Class<?> type, String property) {
+        String name = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == 1) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException("no setter " + name + " in " + type.getName());
+    }
+
+    private static Constructor<?> findConstructor(Class<?> type, List<Class<?>> argTypes) {
+        for (Constructor<?> constructor : type.getConstructors()) {
+            Class<?>[] parameterTypes = constructor.getParameterTypes();
+            if (parameterTypes.length != argTypes.size()) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; i < parameterTypes.length; i++) {
+                Class<?> parameterType = MethodType.methodType(parameterTypes[i]).wrap().returnType();
+                if (!parameterType.isAssignableFrom(argTypes.get(i))) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (matches) {
+                return constructor;
+            }
+        }
+        throw new IllegalArgumentException("no constructor " + type.getName() + argTypes);
+    }
+
+    private static String propertyName(Expression<?> expression) {
+        if (expression instanceof Path) {
+            return ((Path<?>) expression).getMetadata().getName();
+        }
+        if (expression instanceof Operation && ((Operation<?>) expression).getOperator() == Ops.ALIAS) {
+            return propertyName(((Operation<?>) expression).getArg(1));
+        }
+        throw new IllegalArgumentException("bean projection needs a path or an alias: " + expression);
+    }
+
+    private static final class FastFactoryExpression<T> extends FactoryExpressionBase<T> {
+
+        private final List<Expression<?>> args;
+        private final Instantiator instantiator;
+
+        FastFactoryExpression(Class<? extends T> type, Expression<?>[] args, Instantiator instantiator) {
+            super(type);
+            this.args = Arrays.asList(args.clone());
+            this.instantiator = instantiator;
+        }
+
+        @Override
+        public List<Expression<?>> getArgs() {
+            return args;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T newInstance(Object... args) {
+            return (T) instantiator.newInstance(args);
+        }
+
+        @Override
+        public <R, C> R accept(Visitor<R, C> v, C context) {
+            return v.visit(this, context);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof FastFactoryExpression)) {
+                return false;
+            }
+            FastFactoryExpression<?> other = (FastFactoryExpression<?>) obj;
+            return getType().equals(other.getType()) && args.equals(other.args);
+        }
+    }
+}
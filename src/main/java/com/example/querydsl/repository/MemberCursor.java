@@ -0,0 +1,44 @@
+package com.example.querydsl.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import lombok.Getter;
+
+/**
+ * 키셋 페이징에서 마지막으로 읽은 (age, memberId) 위치.
+ * 클라이언트에게는 내부 구조를 알 수 없는 base64 토큰으로만 노출한다.
+ */
+@Getter
+class MemberCursor {
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private final int age;
+    private final long memberId;
+
+    private MemberCursor(int age, long memberId) {
+        this.age = age;
+        this.memberId = memberId;
+    }
+
+    static String encode(int age, Long memberId) {
+        String raw = age + ":" + memberId;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static MemberCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new MemberCursor(
+                    Integer.parseInt(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("invalid cursor: " + token, e);
+        }
+    }
+}
@@ -2,42 +2,326 @@ package com.example.querydsl.repository;
 
 
 import static com.example.querydsl.entity.QMember.*;
+import static com.example.querydsl.entity.QMemberTrigram.memberTrigram;
 import static com.example.querydsl.entity.QTeam.*;
 import static org.springframework.util.StringUtils.*;
 
+import com.example.querydsl.async.QueryExecutor;
+import com.example.querydsl.dto.MemberChunkedBulkResult;
+import com.example.querydsl.dto.MemberCursorPage;
 import com.example.querydsl.dto.MemberSearchCondition;
 import com.example.querydsl.dto.MemberTeamDto;
-import com.example.querydsl.dto.QMemberTeamDto;
+import com.example.querydsl.dto.QTeamStatsDto;
+import com.example.querydsl.dto.TeamStatsDto;
 import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.MemberTrigram;
 import com.example.querydsl.entity.QMember;
 import com.example.querydsl.entity.QTeam;
-import com.querydsl.core.BooleanBuilder;
+import com.example.querydsl.event.MemberChangePublisher;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.ParamExpression;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 import javax.persistence.EntityManager;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.query.NativeQuery;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
+//조회는 readOnly 트랜잭션이라 라우팅이 켜져 있으면 replica 로 간다. 쓰기 메서드는 @Transactional 로 덮어쓴다
 @Repository
+@Transactional(readOnly = true)
 public class MemberJpaRepository {
 
 
+    private static final String FETCH_GRAPH = "javax.persistence.fetchgraph";
+
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchQueryCache searchQueryCache;
+    private final MemberSearchResultCache searchResultCache;
+    private final MemberChangePublisher changePublisher;
+    private final QueryExecutor queryExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate writeTransaction;
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em,
+                               MemberSearchQueryCache searchQueryCache,
+                               MemberSearchResultCache searchResultCache,
+                               MemberChangePublisher changePublisher,
+                               QueryExecutor queryExecutor,
+                               PlatformTransactionManager transactionManager) {
         this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.searchQueryCache = searchQueryCache;
+        this.searchResultCache = searchResultCache;
+        this.changePublisher = changePublisher;
+        this.queryExecutor = queryExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
     }
 
+    @Transactional
     public void save(Member member) {
         em.persist(member);
     }
 
+    /**
+     * 팀 요약(TeamSummary)을 갱신하도록 벌크 delete 가 아니라 엔티티로 지운다.
+     * 준영속 회원을 merge 하면 호출한 쪽의 (오래된) 팀/나이가 덮어써져 요약에서 저장된 적 없는 값을 빼게 되므로
+     * DB 의 row 를 다시 읽어서 지운다.
+     */
+    @Transactional
+    public void delete(Member member) {
+        Member managed = em.contains(member) ? member : em.find(Member.class, member.getId());
+        if (managed != null) {
+            em.remove(managed);
+        }
+    }
+
+    /**
+     * 벌크 update. 영속성 컨텍스트를 거치지 않으므로 실행 전에 flush, 실행 후에 clear 하고
+     * 어떤 팀이 바뀌었는지 알 수 없어 검색 결과 캐시는 전체 무효화된다.
+     * username 은 trigram 을 다시 만들어야 하므로 bulkRename 으로 바꾼다.
+     * ex) bulkUpdate(update -> update.set(member.age, member.age.add(1)), member.age.lt(28))
+     */
+    @Transactional
+    public long bulkUpdate(UnaryOperator<JPAUpdateClause> setter, Predicate... where) {
+        return executeBulkUpdate(setter, false, where);
+    }
+
+    /**
+     * username 벌크 update. 벌크 update 는 MemberTrigramListener 를 거치지 않으므로 바뀐 회원의 member_trigram 을 다시 만든다.
+     * ex) bulkRename(member.username.concat("_old"), member.age.lt(28))
+     */
+    @Transactional
+    public long bulkRename(Expression<String> username, Predicate... where) {
+        return executeBulkUpdate(update -> update.set(member.username, username), true, where);
+    }
+
+    private long executeBulkUpdate(UnaryOperator<JPAUpdateClause> setter, boolean reindex, Predicate... where) {
+        em.flush();
+        //username 이 바뀌면 조건에 더 이상 맞지 않을 수 있으므로 대상 id 범위를 먼저 구한다
+        Tuple idRange = reindex ? idRange(ExpressionUtils.allOf(where)) : null;
+        long count = setter.apply(queryFactory.update(member))
+                .where(where)
+                .execute();
+        if (idRange != null && idRange.get(member.id.min()) != null) {
+            reindexTrigrams(idRange.get(member.id.min()), idRange.get(member.id.max()));
+        }
+        em.clear();
+        changePublisher.allChanged();
+        return count;
+    }
+
+    @Transactional
+    public long bulkDelete(Predicate... where) {
+        em.flush();
+        deleteTrigrams(where);
+        long count = queryFactory
+                .delete(member)
+                .where(where)
+                .execute();
+        em.clear();
+        changePublisher.allChanged();
+        return count;
+    }
+
+    /**
+     * 조건에 맞는 회원을 id 구간(chunkSize)으로 나눠서 구간마다 짧은 트랜잭션으로 update 한다.
+     * 한 문장으로 전체를 update 할 때처럼 대상 row 전체의 락을 끝까지 잡고 있지 않아서 실행 중에도 다른 요청이 막히지 않는다.
+     * 구간마다 커밋되므로 실패한 구간이 있어도 나머지는 반영되고, 결과의 chunks 로 어느 구간이 실패했는지 알 수 있다.
+     * 트랜잭션 안에서는 호출할 수 없다.
+     * username 은 bulkRenameInChunks 로 바꾼다.
+     * ex) bulkUpdateInChunks(condition, update -> update.set(member.age, member.age.add(1)), 1000, 4)
+     *
+     * @param parallelism 동시에 실행할 구간 수, 1 이면 호출한 스레드에서 순서대로 실행
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public MemberChunkedBulkResult bulkUpdateInChunks(MemberSearchCondition condition,
+                                                      UnaryOperator<JPAUpdateClause> setter,
+                                                      int chunkSize, int parallelism) {
+        return inChunks(condition, chunkSize, parallelism,
+                range -> setter.apply(queryFactory.update(member)).where(range).execute(), null);
+    }
+
+    //bulkUpdateInChunks 와 같지만 username 을 바꾸고 구간마다 member_trigram 을 다시 만든다
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public MemberChunkedBulkResult bulkRenameInChunks(MemberSearchCondition condition, Expression<String> username,
+                                                      int chunkSize, int parallelism) {
+        return inChunks(condition, chunkSize, parallelism,
+                range -> queryFactory.update(member).set(member.username, username).where(range).execute(),
+                this::reindexTrigrams);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public MemberChunkedBulkResult bulkDeleteInChunks(MemberSearchCondition condition, int chunkSize, int parallelism) {
+        return inChunks(condition, chunkSize, parallelism,
+                range -> {
+                    deleteTrigrams(range);
+                    return queryFactory.delete(member).where(range).execute();
+                }, null);
+    }
+
+    /**
+     * @param afterChunk 구간 update 후 같은 트랜잭션에서 (fromId, toId) 로 호출된다. 필요 없으면 null
+     */
+    private MemberChunkedBulkResult inChunks(MemberSearchCondition condition, int chunkSize, int parallelism,
+                                             Function<Predicate, Long> statement,
+                                             BiConsumer<Long, Long> afterChunk) {
+        if (chunkSize < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("chunkSize and parallelism must be positive");
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("chunked bulk operations commit per chunk and cannot join a transaction");
+        }
+        long start = System.nanoTime();
+        MemberChunkedBulkResult result = new MemberChunkedBulkResult();
+        Predicate where = bulkCondition(condition);
+
+        Tuple idRange = readOnlyTransaction.execute(status -> idRange(where));
+        Long minId = idRange.get(member.id.min());
+        Long maxId = idRange.get(member.id.max());
+
+        List<Runnable> chunks = new ArrayList<>();
+        if (minId != null) {
+            for (long from = minId; from <= maxId; from += chunkSize) {
+                chunks.add(chunk(from, Math.min(from + chunkSize - 1, maxId), where, statement, afterChunk, result));
+            }
+        }
+        runChunks(chunks, parallelism);
+
+        //호출한 쪽 영속성 컨텍스트(OSIV 등)에 남아 있는 회원은 더 이상 DB 와 같지 않다
+        em.clear();
+        result.finish(System.nanoTime() - start);
+        return result;
+    }
+
+    private Runnable chunk(long fromId, long toId, Predicate where, Function<Predicate, Long> statement,
+                           BiConsumer<Long, Long> afterChunk, MemberChunkedBulkResult result) {
+        return () -> {
+            try {
+                Long affected = writeTransaction.execute(status -> {
+                    long count = statement.apply(ExpressionUtils.allOf(member.id.between(fromId, toId), where));
+                    if (afterChunk != null) {
+                        afterChunk.accept(fromId, toId);
+                    }
+                    changePublisher.allChanged();
+                    return count;
+                });
+                result.chunkCompleted(fromId, toId, affected);
+            } catch (RuntimeException e) {
+                result.chunkFailed(fromId, toId, e.getMessage());
+            }
+        };
+    }
+
+    private void runChunks(List<Runnable> chunks, int parallelism) {
+        if (parallelism == 1 || chunks.size() <= 1) {
+            chunks.forEach(Runnable::run);
+            return;
+        }
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(parallelism, chunks.size()));
+        try {
+            CompletableFuture.allOf(chunks.stream()
+                    .map(chunk -> CompletableFuture.runAsync(chunk, workers))
+                    .toArray(CompletableFuture[]::new))
+                    .join();
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    private Tuple idRange(Predicate where) {
+        return queryFactory
+                .select(member.id.min(), member.id.max())
+                .from(member)
+                .where(where)
+                .fetchOne();
+    }
+
+    /**
+     * 벌크 update 는 MemberTrigramListener 를 거치지 않으므로 id 구간의 member_trigram 을 회원 테이블에서 다시 만든다.
+     * username 은 varchar(255) 라 시작 위치는 253 을 넘지 않는다.
+     */
+    private void reindexTrigrams(long fromId, long toId) {
+        em.createNativeQuery("delete from member_trigram where member_id between :fromId and :toId")
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(MemberTrigram.class)
+                .executeUpdate();
+        em.createNativeQuery("insert into member_trigram (trigram, member_id)"
+                        + " select distinct substring(m.username, r.x, 3), m.member_id"
+                        + " from member m join system_range(1, 253) r on r.x <= char_length(m.username) - 2"
+                        + " where m.member_id between :fromId and :toId")
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(MemberTrigram.class)
+                .executeUpdate();
+    }
+
+    //벌크 delete 는 MemberTrigramListener 를 거치지 않고 member_trigram 에는 FK 가 없으므로 지울 회원의 trigram 을 먼저 지운다
+    private void deleteTrigrams(Predicate... where) {
+        queryFactory.delete(memberTrigram)
+                .where(memberTrigram.memberId.in(JPAExpressions
+                        .select(member.id)
+                        .from(member)
+                        .where(where)))
+                .execute();
+    }
+
+    //update/delete 에는 join 을 쓸 수 없어서 teamName 은 서브쿼리로 건다
+    private Predicate bulkCondition(MemberSearchCondition condition) {
+        BooleanExpression teamIn = hasText(condition.getTeamName())
+                ? member.team.id.in(JPAExpressions
+                        .select(team.id)
+                        .from(team)
+                        .where(team.name.eq(condition.getTeamName())))
+                : null;
+        int shape = MemberSearchShape.of(condition) & ~MemberSearchShape.TEAM_NAME;
+        return ExpressionUtils.allOf(
+                MemberSearchPredicates.where(shape, MemberSearchPredicates.params(condition)).getValue(),
+                teamIn);
+    }
+
     public Optional<Member> findById(Long id) {
         Member member = em.find(Member.class, id);
         return Optional.ofNullable(member);
@@ -52,6 +336,20 @@ public class MemberJpaRepository {
                 .selectFrom(member).fetch();
     }
 
+    //엔티티 그래프로 team 까지 한 번에 조회 (fetch join 을 쿼리마다 쓰지 않아도 된다)
+    public List<Member> findAll_entityGraph(){
+        return em.createQuery("select m from Member m", Member.class)
+                .setHint(FETCH_GRAPH, em.getEntityGraph("Member.team"))
+                .getResultList();
+    }
+
+    public List<Member> findAll_queryDsl_entityGraph(){
+        return queryFactory
+                .selectFrom(member)
+                .setHint(FETCH_GRAPH, em.getEntityGraph("Member.team"))
+                .fetch();
+    }
+
     public List<Member> findByUserName(String username) {
         return em.createQuery("select m from Member m where m.username = :username", Member.class)
                 .setParameter("username", username)
@@ -65,73 +363,256 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    /**
+     * 결과를 수정하지 않는 호출용 조회 (*_readOnly).
+     * 엔티티를 read-only 로 로딩해 dirty checking 용 스냅샷을 만들지 않고, 쿼리 전 auto flush 도 하지 않는다.
+     * 쓰기 트랜잭션 안에서 호출하면 아직 flush 되지 않은 변경은 보이지 않고, 반환된 엔티티를 수정해도 update 되지 않는다.
+     */
+    public List<Member> findAll_readOnly(){
+        return queryFactory
+                .selectFrom(member)
+                .setHint(QueryHints.READ_ONLY, true)
+                .setHint(QueryHints.FLUSH_MODE, FlushMode.MANUAL)
+                .fetch();
+    }
+
+    public List<Member> findByUsername_readOnly(String username) {
+        return queryFactory
+                .selectFrom(member)
+                .where(member.username.eq(username))
+                .setHint(QueryHints.READ_ONLY, true)
+                .setHint(QueryHints.FLUSH_MODE, FlushMode.MANUAL)
+                .fetch();
+    }
+
+    //em.find 에는 read-only 힌트가 없어서 세션 기본값을 잠시 바꿔서 로딩한다
+    public Optional<Member> findById_readOnly(Long id) {
+        Session session = em.unwrap(Session.class);
+        boolean defaultReadOnly = session.isDefaultReadOnly();
+        session.setDefaultReadOnly(true);
+        try {
+            return Optional.ofNullable(session.find(Member.class, id));
+        } finally {
+            session.setDefaultReadOnly(defaultReadOnly);
+        }
+    }
+
+    /**
+     * 현재 트랜잭션의 커넥션으로 StatelessSession 을 열어 읽는다.
+     * 영속성 컨텍스트가 없어서 1차 캐시, 스냅샷, flush 비용이 모두 없다.
+     * 대신 지연 로딩이 안 되므로 team 은 fetch join 으로 함께 읽고, 반환된 엔티티는 준영속 상태다.
+     */
+    public List<Member> findAll_stateless(){
+        SessionFactory sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactory.class);
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (StatelessSession session = sessionFactory.withStatelessOptions()
+                    .connection(connection)
+                    .openStatelessSession()) {
+                return session.createQuery("select m from Member m left join fetch m.team", Member.class)
+                        .getResultList();
+            }
+        });
+    }
+
+    /**
+     * 결과 캐시를 거치지 않는 검색. where 절은 MemberSearchPredicates 의 BooleanBuilder 로 만들고,
+     * 조건 조합별로 한 번 직렬화해 둔 JPQL 에 값만 바인딩한다 (MemberSearchQueryCache)
+     */
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
+        return fetchByWhere(condition);
+    }
+
+    //같은 조건이 반복되는 트래픽이 많아 결과를 캐시한다 (MemberSearchResultCache)
+    public List<MemberTeamDto> searchByWhere(MemberSearchCondition condition) {
+        return searchResultCache.get(condition, this::fetchByWhere);
+    }
 
-        BooleanBuilder builder = new BooleanBuilder();
-        if (hasText(condition.getUsername())) {
-            builder.and(member.username.eq(condition.getUsername()));
+    private List<MemberTeamDto> fetchByWhere(MemberSearchCondition condition) {
+        int shape = MemberSearchShape.of(condition);
+        Map<ParamExpression<?>, Object> params = MemberSearchPredicates.params(condition);
+        //3글자 미만 usernameContains 는 캐시된 모양과 달라서 값을 넣은 Querydsl 쿼리로 실행한다
+        if (!MemberSearchPredicates.matchesShape(shape, params)) {
+            return selectMemberTeam(shape, params).fetch();
         }
+        return searchQueryCache.createQuery(em, shape, params).getResultList();
+    }
+
+    /**
+     * count 쿼리는 필요할 때만 실행한다.
+     * 첫 페이지가 페이지 크기보다 작거나 마지막 페이지면 content 만으로 total 을 계산할 수 있어 생략된다.
+     */
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = fetchPage(condition, pageable);
+
+        JPAQuery<Long> countQuery = countQuery(condition);
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    }
 
-        if (hasText(condition.getTeamName())) {
-            builder.and(team.name.eq(condition.getTeamName()));
+    /**
+     * searchPage 와 같은 결과지만 content 와 count 를 QueryExecutor 에서 각자의 readOnly 트랜잭션(커넥션)으로 동시에 실행한다.
+     * 응답 시간이 두 쿼리의 합이 아니라 느린 쪽 하나가 된다.
+     * 두 쿼리가 서로 다른 스냅샷을 볼 수 있으므로 total 은 content 로 확정되는 값보다 작아지지 않게 보정한다.
+     * content 는 searchPage 와 같은 정렬(pageOrder)이라 다른 커넥션에서 읽어도 같은 순서다.
+     * 이미 트랜잭션 안이면 그 트랜잭션의 데이터(커밋 전 변경 포함)를 봐야 하므로 searchPage 와 같이 순차 실행한다.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Page<MemberTeamDto> searchPageConcurrently(MemberSearchCondition condition, Pageable pageable) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return searchPage(condition, pageable);
         }
+        CompletableFuture<List<MemberTeamDto>> content = queryExecutor.submit(
+                () -> readOnlyTransaction.execute(status -> fetchPage(condition, pageable)));
+        CompletableFuture<Long> count = queryExecutor.submit(
+                () -> readOnlyTransaction.execute(status -> countQuery(condition).fetchOne()));
 
-        if (condition.getAgeGoe() != null) {
-            builder.and(member.age.goe(condition.getAgeGoe()));
+        List<MemberTeamDto> page = content.join();
+        long total = count.join();
+        long lowerBound = pageable.getOffset() + page.size();
+        //마지막 페이지면 content 만으로 total 이 정해진다
+        if (!page.isEmpty() && page.size() < pageable.getPageSize()) {
+            total = lowerBound;
         }
+        return new PageImpl<>(page, pageable, Math.max(total, lowerBound));
+    }
+
+    private List<MemberTeamDto> fetchPage(MemberSearchCondition condition, Pageable pageable) {
+        return selectMemberTeam(condition)
+                .orderBy(pageOrder(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+    }
 
-        if (condition.getAgeLoe() != null) {
-            builder.and(member.age.loe(condition.getAgeLoe()));
+    /**
+     * Pageable 의 정렬을 적용하고 항상 member.id 로 끝낸다.
+     * 정렬 값이 같은 row 끼리의 순서가 정해져 있어야 offset 페이지 사이에 row 가 중복되거나 빠지지 않는다.
+     */
+    private static OrderSpecifier<?>[] pageOrder(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> path = sortPath(order.getProperty());
+            OrderSpecifier<?> specifier = order.isAscending() ? path.asc() : path.desc();
+            if (order.getNullHandling() == Sort.NullHandling.NULLS_FIRST) {
+                specifier = specifier.nullsFirst();
+            } else if (order.getNullHandling() == Sort.NullHandling.NULLS_LAST) {
+                specifier = specifier.nullsLast();
+            }
+            orders.add(specifier);
         }
+        orders.add(member.id.asc());
+        return orders.toArray(new OrderSpecifier<?>[0]);
+    }
 
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(builder)
+    //정렬은 MemberTeamDto 의 필드 이름으로 받는다
+    private static ComparableExpressionBase<?> sortPath(String property) {
+        switch (property) {
+            case "memberId":
+                return member.id;
+            case "username":
+                return member.username;
+            case "age":
+                return member.age;
+            case "teamId":
+                return team.id;
+            case "teamName":
+                return team.name;
+            default:
+                throw new IllegalArgumentException("unsupported sort property: " + property);
+        }
+    }
+
+    //count 에는 DTO 프로젝션이 필요없고, team 조인도 teamName 조건이 있을 때만 건다
+    private JPAQuery<Long> countQuery(MemberSearchCondition condition) {
+        int shape = MemberSearchShape.of(condition);
+        JPAQuery<Long> query = queryFactory
+                .select(member.count())
+                .from(member);
+        if (MemberSearchShape.has(shape, MemberSearchShape.TEAM_NAME)) {
+            query.join(member.team, team);
+        }
+        return query.where(MemberSearchPredicates.where(shape, MemberSearchPredicates.params(condition)));
+    }
+
+    /**
+     * offset 대신 마지막으로 읽은 (age, memberId) 이후부터 조회하는 키셋 페이징.
+     * 건너뛴 row 를 읽고 버리지 않기 때문에 몇 페이지를 넘겨도 조회 비용이 일정하다.
+     *
+     * @param after 이전 페이지의 nextCursor, 첫 페이지면 null
+     */
+    public MemberCursorPage searchByCursor(MemberSearchCondition condition, String after, int size) {
+        if (size < 1 || size > MemberCursor.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MemberCursor.MAX_PAGE_SIZE);
+        }
+        MemberCursor cursor = MemberCursor.decode(after);
+
+        List<MemberTeamDto> content = selectMemberTeam(condition)
+                .where(afterCursor(cursor))
+                .orderBy(member.age.asc(), member.id.asc())
+                .limit(size + 1) // 한 건 더 읽어서 다음 페이지 존재 여부를 판단
                 .fetch();
+
+        if (content.size() <= size) {
+            return new MemberCursorPage(content, null);
+        }
+        List<MemberTeamDto> page = new ArrayList<>(content.subList(0, size));
+        MemberTeamDto last = page.get(size - 1);
+        return new MemberCursorPage(page, MemberCursor.encode(last.getAge(), last.getMemberId()));
     }
 
-    public List<MemberTeamDto> searchByWhere(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+    private BooleanExpression afterCursor(MemberCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        //age >= ? 를 먼저 두어 age 범위 조건으로 인덱스를 탈 수 있게 한다
+        return member.age.goe(cursor.getAge())
+                .and(member.age.gt(cursor.getAge()).or(member.id.gt(cursor.getMemberId())));
+    }
+
+    /**
+     * 검색 조건에 맞는 회원을 팀별로 묶은 나이 통계. group by 한 번으로 DB 에서 집계해서 팀 수만큼의 row 만 읽는다.
+     * 평균은 Hibernate 가 avg(cast(age as double)) 로 만들어 정수 나눗셈으로 잘리지 않는다.
+     */
+    public List<TeamStatsDto> teamStats(MemberSearchCondition condition) {
+        return fromMemberJoinTeam(queryFactory
+                .select(new QTeamStatsDto(
+                        team.id,
+                        team.name,
+                        member.count(),
+                        member.age.avg(),
+                        member.age.min(),
+                        member.age.max()
+                )), condition)
+                .groupBy(team.id, team.name)
+                .orderBy(team.name.asc().nullsLast())
                 .fetch();
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
+    /**
+     * 결과를 List 로 모으지 않고 forward-only 커서로 한 row 씩 넘긴다.
+     * DTO 프로젝션이라 영속성 컨텍스트에 엔티티가 쌓이지 않아 결과 크기와 상관없이 메모리가 일정하다.
+     */
+    public void streamByWhere(MemberSearchCondition condition, int fetchSize, Consumer<MemberTeamDto> consumer) {
+        try (Stream<MemberTeamDto> stream = selectMemberTeam(condition)
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .stream()) {
+            stream.forEach(consumer);
+        }
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+    //where 파라미터 방식 검색의 공통 select
+    private JPAQuery<MemberTeamDto> selectMemberTeam(MemberSearchCondition condition) {
+        return selectMemberTeam(MemberSearchShape.of(condition), MemberSearchPredicates.params(condition));
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe == null ? null : member.age.goe(ageGoe);
+    private JPAQuery<MemberTeamDto> selectMemberTeam(int shape, Map<ParamExpression<?>, Object> params) {
+        return MemberSearchPredicates.fromMemberJoinTeam(
+                queryFactory.select(MemberSearchPredicates.MEMBER_TEAM), shape, params);
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe == null ? null : member.age.loe(ageLoe);
+    //member 와 team 을 조인하고 검색 조건을 건다 (MemberSearchPredicates)
+    private <T> JPAQuery<T> fromMemberJoinTeam(JPAQuery<T> query, MemberSearchCondition condition) {
+        return MemberSearchPredicates.fromMemberJoinTeam(
+                query, MemberSearchShape.of(condition), MemberSearchPredicates.params(condition));
     }
 
 }
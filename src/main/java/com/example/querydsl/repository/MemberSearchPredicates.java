@@ -0,0 +1,155 @@
+package com.example.querydsl.repository;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QMemberTrigram.memberTrigram;
+import static com.example.querydsl.entity.QTeam.team;
+import static com.example.querydsl.repository.MemberSearchShape.has;
+import static org.springframework.util.StringUtils.hasText;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.QMemberTeamDto;
+import com.example.querydsl.entity.MemberTrigram;
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 회원 검색 조건의 from/join/where 를 만드는 유일한 곳.
+ * params 없이 만들면 값 자리에 Param 이 들어가 조건 조합(shape)마다 모양이 같으므로 MemberSearchQueryCache 가 한 번만 직렬화하고,
+ * params 를 넘기면 값이 들어간 조건이 되어 페이징/count/스트림처럼 Querydsl 로 이어 붙이는 쿼리에 그대로 쓴다.
+ */
+final class MemberSearchPredicates {
+
+    static final Param<String> USERNAME = new Param<>(String.class, "username");
+    static final Param<String> USERNAME_FROM = new Param<>(String.class, "usernameFrom");
+    static final Param<String> USERNAME_TO = new Param<>(String.class, "usernameTo");
+    @SuppressWarnings("rawtypes")
+    static final Param<Collection> TRIGRAMS = new Param<>(Collection.class, "trigrams");
+    static final Param<Long> TRIGRAM_COUNT = new Param<>(Long.class, "trigramCount");
+    static final Param<String> USERNAME_LIKE = new Param<>(String.class, "usernameLike");
+    static final Param<String> TEAM_NAME = new Param<>(String.class, "teamName");
+    static final Param<Integer> AGE_GOE = new Param<>(Integer.class, "ageGoe");
+    static final Param<Integer> AGE_LOE = new Param<>(Integer.class, "ageLoe");
+
+    static final QMemberTeamDto MEMBER_TEAM = new QMemberTeamDto(
+            member.id.as("memberId"),
+            member.username,
+            member.age,
+            team.id.as("teamId"),
+            team.name.as("teamName"));
+
+    private MemberSearchPredicates() {
+    }
+
+    //조건 값을 쿼리에 바인딩할 값으로 바꾼다. usernameStartsWith 는 범위로, usernameContains 는 trigram 과 like 패턴으로 바뀐다
+    static Map<ParamExpression<?>, Object> params(MemberSearchCondition condition) {
+        Map<ParamExpression<?>, Object> params = new HashMap<>();
+        if (hasText(condition.getUsername())) {
+            params.put(USERNAME, condition.getUsername());
+        }
+        if (hasText(condition.getUsernameStartsWith())) {
+            params.put(USERNAME_FROM, condition.getUsernameStartsWith());
+            params.put(USERNAME_TO, UsernamePatterns.prefixUpperBound(condition.getUsernameStartsWith()));
+        }
+        if (hasText(condition.getUsernameContains())) {
+            Set<String> trigrams = MemberTrigram.trigrams(condition.getUsernameContains());
+            if (!trigrams.isEmpty()) {
+                params.put(TRIGRAMS, trigrams);
+                params.put(TRIGRAM_COUNT, (long) trigrams.size());
+            }
+            params.put(USERNAME_LIKE, UsernamePatterns.containsPattern(condition.getUsernameContains()));
+        }
+        if (hasText(condition.getTeamName())) {
+            params.put(TEAM_NAME, condition.getTeamName());
+        }
+        if (condition.getAgeGoe() != null) {
+            params.put(AGE_GOE, condition.getAgeGoe());
+        }
+        if (condition.getAgeLoe() != null) {
+            params.put(AGE_LOE, condition.getAgeLoe());
+        }
+        return params;
+    }
+
+    //3글자 미만 usernameContains 는 trigram 조건이 빠져서 shape 로 캐시된 모양과 다르다
+    static boolean matchesShape(int shape, Map<ParamExpression<?>, Object> params) {
+        return !has(shape, MemberSearchShape.USERNAME_CONTAINS) || params.containsKey(TRIGRAMS);
+    }
+
+    /**
+     * teamName 조건이 있으면 어차피 팀이 없는 회원은 걸러지므로 inner join 으로 바꿔서
+     * 옵티마이저가 team.name 인덱스에서 시작해 (team_id, age) 인덱스로 회원을 찾을 수 있게 한다.
+     */
+    static <T> JPAQuery<T> fromMemberJoinTeam(JPAQuery<T> query, int shape, Map<ParamExpression<?>, Object> params) {
+        query.from(member);
+        if (has(shape, MemberSearchShape.TEAM_NAME)) {
+            query.join(member.team, team);
+        } else {
+            query.leftJoin(member.team, team);
+        }
+        return query.where(where(shape, params));
+    }
+
+    //shape 에 있는 조건을 and 로 묶는다. params 가 null 이면 값 대신 Param 이 들어간다
+    static BooleanBuilder where(int shape, Map<ParamExpression<?>, Object> params) {
+        BooleanBuilder builder = new BooleanBuilder();
+        if (has(shape, MemberSearchShape.USERNAME)) {
+            builder.and(member.username.eq(arg(USERNAME, params)));
+        }
+        //like 'prefix%' 대신 범위 조건으로 idx_member_username 을 탄다
+        if (has(shape, MemberSearchShape.USERNAME_PREFIX)) {
+            builder.and(member.username.goe(arg(USERNAME_FROM, params)))
+                    .and(member.username.lt(arg(USERNAME_TO, params)));
+        }
+        if (has(shape, MemberSearchShape.USERNAME_CONTAINS)) {
+            builder.and(usernameContains(params));
+        }
+        if (has(shape, MemberSearchShape.TEAM_NAME)) {
+            builder.and(team.name.eq(arg(TEAM_NAME, params)));
+        }
+        if (has(shape, MemberSearchShape.AGE_GOE)) {
+            builder.and(member.age.goe(arg(AGE_GOE, params)));
+        }
+        if (has(shape, MemberSearchShape.AGE_LOE)) {
+            builder.and(member.age.loe(arg(AGE_LOE, params)));
+        }
+        return builder;
+    }
+
+    /**
+     * 검색어의 trigram 을 모두 가진 회원(idx_member_trigram)으로 후보를 좁히고 like 로 실제 포함 여부를 확인한다.
+     * trigram 은 후보를 넓게 잡을 뿐이라 결과는 like 만 쓸 때와 같다. 3글자 미만이면 trigram 이 없어 like 로 전체를 본다.
+     */
+    @SuppressWarnings("unchecked")
+    private static BooleanExpression usernameContains(Map<ParamExpression<?>, Object> params) {
+        BooleanExpression like = member.username.like(arg(USERNAME_LIKE, params), UsernamePatterns.ESCAPE);
+        if (params != null && !params.containsKey(TRIGRAMS)) {
+            return like;
+        }
+        //컬렉션 Param 은 in (?) 로 감싸야 Hibernate 가 값 개수만큼 펼친다
+        BooleanExpression trigramIn = params == null
+                ? Expressions.booleanTemplate("{0} in ({1})", memberTrigram.trigram, TRIGRAMS)
+                : memberTrigram.trigram.in((Collection<String>) params.get(TRIGRAMS));
+        return member.id.in(JPAExpressions
+                        .select(memberTrigram.memberId)
+                        .from(memberTrigram)
+                        .where(trigramIn)
+                        .groupBy(memberTrigram.memberId)
+                        .having(memberTrigram.trigram.count().eq(arg(TRIGRAM_COUNT, params))))
+                .and(like);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Expression<T> arg(Param<T> param, Map<ParamExpression<?>, Object> params) {
+        return params == null ? param : Expressions.constant((T) params.get(param));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.querydsl.repository;
+
+import static com.example.querydsl.repository.MemberSearchShape.SHAPE_COUNT;
+
+import com.example.querydsl.dto.MemberTeamDto;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import org.springframework.stereotype.Component;
+
+/**
+ * 조건 조합(shape)별로 MemberSearchPredicates 의 검색 쿼리를 Param 으로 만들어 JPQL 로 한 번만 직렬화해 둔다.
+ * 요청마다 Querydsl 표현식을 만들고 직렬화하지 않고 값만 바인딩하며,
+ * 같은 shape 는 항상 같은 문자열이라 Hibernate 의 query plan cache 도 그대로 적중한다.
+ */
+@Component
+public class MemberSearchQueryCache {
+
+    private final AtomicReferenceArray<SearchQuery> queries = new AtomicReferenceArray<>(SHAPE_COUNT);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    TypedQuery<MemberTeamDto> createQuery(EntityManager em, int shape, Map<ParamExpression<?>, Object> params) {
+        SearchQuery searchQuery = get(shape);
+        TypedQuery<MemberTeamDto> query = em.createQuery(searchQuery.jpql, MemberTeamDto.class);
+        JPAUtil.setConstants(query, searchQuery.constants, params);
+        return query;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private SearchQuery get(int shape) {
+        SearchQuery query = queries.get(shape);
+        if (query != null) {
+            hits.increment();
+            return query;
+        }
+        misses.increment();
+        query = render(shape);
+        queries.compareAndSet(shape, null, query);
+        return query;
+    }
+
+    static SearchQuery render(int shape) {
+        JPAQuery<MemberTeamDto> query = MemberSearchPredicates.fromMemberJoinTeam(
+                new JPAQuery<Void>().select(MemberSearchPredicates.MEMBER_TEAM), shape, null);
+        JPQLSerializer serializer = new JPQLSerializer(HQLTemplates.DEFAULT);
+        serializer.serialize(query.getMetadata(), false, null);
+        return new SearchQuery(serializer.toString(), serializer.getConstants());
+    }
+
+    //constants 는 직렬화된 순서의 Param 목록 (?1, ?2 ...)
+    static class SearchQuery {
+
+        final String jpql;
+        final List<Object> constants;
+
+        SearchQuery(String jpql, List<Object> constants) {
+            this.jpql = jpql;
+            this.constants = List.copyOf(constants);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.querydsl.repository;
+
+import static org.springframework.util.StringUtils.hasText;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.event.MemberChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * searchByWhere 결과 캐시. 크기와 TTL 로 축출되고, 커밋된 회원/팀 변경(MemberChangedEvent)이 오면
+ * 영향받는 팀의 엔트리와 teamName 조건이 없는 엔트리만 무효화한다.
+ * MemberTeamDto 는 변경 가능한 객체라 캐시에는 복사본을 넣고, 적중하면 복사본을 다시 만들어 돌려준다.
+ */
+@Component
+public class MemberSearchResultCache {
+
+    private final Cache<MemberSearchCondition, List<MemberTeamDto>> cache;
+    //무효화가 일어날 때마다 증가, 조회 도중 무효화된 결과를 다시 넣지 않기 위해 사용
+    //비교 후 put 과 무효화는 lock 안에서 실행해서 비교와 put 사이에 무효화가 끼어들지 못하게 한다
+    private final AtomicLong generation = new AtomicLong();
+    private final Object lock = new Object();
+
+    public MemberSearchResultCache(@Value("${member.search.result-cache.max-size:1000}") long maxSize,
+                                   @Value("${member.search.result-cache.ttl-seconds:30}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public List<MemberTeamDto> get(MemberSearchCondition condition,
+                                   Function<MemberSearchCondition, List<MemberTeamDto>> loader) {
+        //쓰기 트랜잭션 안에서는 커밋 전 데이터가 보일 수 있으므로 캐시를 거치지 않는다
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return loader.apply(condition);
+        }
+        MemberSearchCondition key = normalize(condition);
+        List<MemberTeamDto> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return copyOf(cached);
+        }
+        long loadedGeneration = generation.get();
+        List<MemberTeamDto> result = loader.apply(key);
+        List<MemberTeamDto> copy = copyOf(result);
+        synchronized (lock) {
+            if (generation.get() == loadedGeneration) {
+                cache.put(key, copy);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    @EventListener
+    public void on(MemberChangedEvent event) {
+        synchronized (lock) {
+            generation.incrementAndGet();
+            if (event.isAllTeams()) {
+                cache.invalidateAll();
+                return;
+            }
+            cache.asMap().keySet().removeIf(key -> event.affects(key.getTeamName()));
+        }
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static List<MemberTeamDto> copyOf(List<MemberTeamDto> rows) {
+        List<MemberTeamDto> copy = new ArrayList<>(rows.size());
+        for (MemberTeamDto row : rows) {
+            copy.add(new MemberTeamDto(row.getMemberId(), row.getUsername(), row.getAge(),
+                    row.getTeamId(), row.getTeamName()));
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    //빈 문자열은 조건이 없는 것과 같으므로 null 로 맞춰서 같은 키가 되게 한다
+    static MemberSearchCondition normalize(MemberSearchCondition condition) {
+        MemberSearchCondition key = new MemberSearchCondition();
+        key.setUsername(hasText(condition.getUsername()) ? condition.getUsername() : null);
+        key.setUsernameStartsWith(hasText(condition.getUsernameStartsWith()) ? condition.getUsernameStartsWith() : null);
+        key.setUsernameContains(hasText(condition.getUsernameContains()) ? condition.getUsernameContains() : null);
+        key.setTeamName(hasText(condition.getTeamName()) ? condition.getTeamName() : null);
+        key.setAgeGoe(condition.getAgeGoe());
+        key.setAgeLoe(condition.getAgeLoe());
+        return key;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.querydsl.repository;
+
+import static org.springframework.util.StringUtils.hasText;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import java.util.StringJoiner;
+
+/**
+ * MemberSearchCondition 에서 어떤 조건이 채워졌는지를 비트마스크로 표현한다.
+ * 값은 담지 않기 때문에 조건 조합(64가지)별로 쿼리나 통계를 묶는 키로 쓴다.
+ */
+public final class MemberSearchShape {
+
+    public static final int USERNAME = 1;
+    public static final int TEAM_NAME = 1 << 1;
+    public static final int AGE_GOE = 1 << 2;
+    public static final int AGE_LOE = 1 << 3;
+    public static final int USERNAME_PREFIX = 1 << 4;
+    public static final int USERNAME_CONTAINS = 1 << 5;
+
+    public static final int SHAPE_COUNT = 1 << 6;
+
+    private MemberSearchShape() {
+    }
+
+    public static int of(MemberSearchCondition condition) {
+        int shape = 0;
+        if (hasText(condition.getUsername())) {
+            shape |= USERNAME;
+        }
+        if (hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE;
+        }
+        if (hasText(condition.getUsernameStartsWith())) {
+            shape |= USERNAME_PREFIX;
+        }
+        if (hasText(condition.getUsernameContains())) {
+            shape |= USERNAME_CONTAINS;
+        }
+        return shape;
+    }
+
+    public static boolean has(int shape, int field) {
+        return (shape & field) != 0;
+    }
+
+    //ex) "username+ageGoe", 조건이 없으면 "none"
+    public static String describe(int shape) {
+        StringJoiner joiner = new StringJoiner("+");
+        if (has(shape, USERNAME)) {
+            joiner.add("username");
+        }
+        if (has(shape, USERNAME_PREFIX)) {
+            joiner.add("usernameStartsWith");
+        }
+        if (has(shape, USERNAME_CONTAINS)) {
+            joiner.add("usernameContains");
+        }
+        if (has(shape, TEAM_NAME)) {
+            joiner.add("teamName");
+        }
+        if (has(shape, AGE_GOE)) {
+            joiner.add("ageGoe");
+        }
+        if (has(shape, AGE_LOE)) {
+            joiner.add("ageLoe");
+        }
+        return shape == 0 ? "none" : joiner.toString();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.querydsl.repository;
+
+import static com.example.querydsl.entity.QTeam.team;
+
+import com.example.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.Optional;
+import javax.persistence.EntityManager;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+@Transactional(readOnly = true)
+public class TeamJpaRepository {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public TeamJpaRepository(EntityManager em) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    @Transactional
+    public void save(Team team) {
+        em.persist(team);
+    }
+
+    //cache 프로파일에서는 2차 캐시에서 조회된다
+    public Optional<Team> findById(Long id) {
+        return Optional.ofNullable(em.find(Team.class, id));
+    }
+
+    //cache 프로파일에서는 query.teamByName 쿼리 캐시에서 조회된다
+    public Optional<Team> findByName(String name) {
+        Team findTeam = queryFactory
+                .selectFrom(team)
+                .where(team.name.eq(name))
+                .setHint(QueryHints.CACHEABLE, true)
+                .setHint(QueryHints.CACHE_REGION, "query.teamByName")
+                .fetchFirst();
+        return Optional.ofNullable(findTeam);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.querydsl.repository;
+
+import static com.example.querydsl.entity.QTeam.team;
+import static com.example.querydsl.entity.QTeamSummary.teamSummary;
+
+import com.example.querydsl.dto.TeamStatsDto;
+import com.example.querydsl.entity.TeamSummary;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * team_summary 조회. 회원 테이블을 읽지 않으므로 비용이 팀 수에만 비례한다.
+ * 쓰기는 TeamSummaryListener(증감)와 TeamSummaryReconciler(보정)가 맡는다.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class TeamSummaryRepository {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public TeamSummaryRepository(EntityManager em) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    public Optional<TeamSummary> findById(Long teamId) {
+        return Optional.ofNullable(em.find(TeamSummary.class, teamId));
+    }
+
+    //teamStats 와 같은 모양(팀 이름 순)으로 돌려준다
+    public List<TeamStatsDto> findAllStats() {
+        List<Tuple> rows = queryFactory
+                .select(teamSummary, team.name)
+                .from(teamSummary)
+                .join(team).on(team.id.eq(teamSummary.teamId))
+                .orderBy(team.name.asc().nullsLast())
+                .fetch();
+        return rows.stream()
+                .map(row -> row.get(teamSummary).toStats(row.get(team.name)))
+                .collect(Collectors.toList());
+    }
+}
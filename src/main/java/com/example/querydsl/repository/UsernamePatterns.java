@@ -0,0 +1,40 @@
+package com.example.querydsl.repository;
+
+/**
+ * usernameStartsWith / usernameContains 조건 값을 쿼리 파라미터로 바꾼다.
+ * MemberSearchPredicates 가 바인딩할 값을 만들 때 쓴다.
+ */
+final class UsernamePatterns {
+
+    //Querydsl 의 like/contains 와 같은 escape 문자
+    static final char ESCAPE = '!';
+
+    private UsernamePatterns() {
+    }
+
+    /**
+     * prefix 로 시작하는 문자열의 상한 (포함하지 않음). "abc" -> "abd".
+     * username >= prefix and username < 상한 으로 검색하면 like 와 달리 패턴 해석 없이 username 인덱스 범위만 읽는다.
+     * H2 의 기본 문자열 비교는 문자 코드 순이라 범위와 startsWith 결과가 같다.
+     */
+    static String prefixUpperBound(String prefix) {
+        char last = prefix.charAt(prefix.length() - 1);
+        if (last == Character.MAX_VALUE) {
+            throw new IllegalArgumentException("usernameStartsWith must not end with U+FFFF");
+        }
+        return prefix.substring(0, prefix.length() - 1) + (char) (last + 1);
+    }
+
+    //"a%b" -> "%a!%b%"
+    static String containsPattern(String term) {
+        StringBuilder pattern = new StringBuilder(term.length() + 2).append('%');
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (c == '%' || c == '_' || c == ESCAPE) {
+                pattern.append(ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+}
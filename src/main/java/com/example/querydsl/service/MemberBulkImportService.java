@@ -0,0 +1,199 @@
+package com.example.querydsl.service;
+
+import static com.example.querydsl.entity.QTeam.team;
+
+import com.example.querydsl.dto.MemberBulkImportResult;
+import com.example.querydsl.dto.MemberImportRow;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+/**
+ * NDJSON/CSV 로 들어오는 회원 (username, age, teamName) 을 한 줄씩 읽으면서 batch-size 단위 트랜잭션으로 넣는다.
+ * 팀은 시작할 때 (name, id) 만 읽어 두고 getReference 로 연결하기 때문에 Team row 를 읽지 않는다.
+ * 없는 팀 이름이면 해당 batch 에서 새로 만든다.
+ */
+@Slf4j
+@Service
+public class MemberBulkImportService {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public MemberBulkImportService(EntityManager em,
+                                   TransactionTemplate transactionTemplate,
+                                   ObjectMapper objectMapper,
+                                   @Value("${member.import.batch-size:1000}") int batchSize) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    public MemberBulkImportResult importNdjson(InputStream in) throws IOException {
+        return importRows(in, this::parseNdjson);
+    }
+
+    //따옴표로 감싼 값은 지원하지 않는다. 첫 줄이 username 으로 시작하면 헤더로 보고 건너뛴다
+    public MemberBulkImportResult importCsv(InputStream in) throws IOException {
+        return importRows(in, this::parseCsv);
+    }
+
+    private MemberBulkImportResult importRows(InputStream in, RowParser parser) throws IOException {
+        long start = System.nanoTime();
+        MemberBulkImportResult result = new MemberBulkImportResult();
+        Map<String, Long> teamIds = loadTeamIds();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<MemberImportRow> batch = new ArrayList<>(batchSize);
+        long lineNumber = 0;
+        long batchStartLine = 1;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            MemberImportRow row;
+            try {
+                row = parser.parse(line, lineNumber);
+                if (row != null) {
+                    validate(row);
+                }
+            } catch (IllegalArgumentException e) {
+                result.rowRejected(lineNumber, e.getMessage());
+                continue;
+            }
+            if (row == null) {
+                continue;
+            }
+            if (batch.isEmpty()) {
+                batchStartLine = lineNumber;
+            }
+            batch.add(row);
+            if (batch.size() == batchSize) {
+                insertBatch(batch, teamIds, batchStartLine, lineNumber, result);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertBatch(batch, teamIds, batchStartLine, lineNumber, result);
+        }
+
+        result.finish(System.nanoTime() - start);
+        log.info("member bulk import: imported={}, failed={}, batches={}, {} rows/sec",
+                result.getImportedRows(), result.getFailedRows(), result.getBatches(), result.getRowsPerSecond());
+        return result;
+    }
+
+    private void insertBatch(List<MemberImportRow> batch, Map<String, Long> teamIds,
+                             long fromLine, long toLine, MemberBulkImportResult result) {
+        Map<String, Long> createdTeamIds = new HashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (MemberImportRow row : batch) {
+                    Member member = new Member(row.getUsername(), row.getAge());
+                    member.setTeam(teamReference(row.getTeamName(), teamIds, createdTeamIds));
+                    em.persist(member);
+                }
+                em.flush();
+                em.clear();
+            });
+        } catch (RuntimeException e) {
+            //롤백된 batch 에서 만든 팀은 없던 것이 된다
+            em.clear();
+            log.warn("member bulk import batch failed: lines {}-{}", fromLine, toLine, e);
+            result.batchFailed(fromLine, toLine, batch.size(), e.getMessage());
+            return;
+        }
+        teamIds.putAll(createdTeamIds);
+        result.batchImported(batch.size());
+    }
+
+    private Team teamReference(String teamName, Map<String, Long> teamIds, Map<String, Long> createdTeamIds) {
+        if (!StringUtils.hasText(teamName)) {
+            return null;
+        }
+        Long teamId = teamIds.get(teamName);
+        if (teamId == null) {
+            teamId = createdTeamIds.get(teamName);
+        }
+        if (teamId == null) {
+            Team newTeam = new Team(teamName);
+            em.persist(newTeam);
+            createdTeamIds.put(teamName, newTeam.getId());
+            return newTeam;
+        }
+        return em.getReference(Team.class, teamId);
+    }
+
+    private Map<String, Long> loadTeamIds() {
+        List<Tuple> rows = queryFactory
+                .select(team.name, team.id)
+                .from(team)
+                .fetch();
+        Map<String, Long> teamIds = new HashMap<>();
+        for (Tuple row : rows) {
+            teamIds.put(row.get(team.name), row.get(team.id));
+        }
+        return teamIds;
+    }
+
+    //username 이 없는 row 는 batch 전체를 롤백시키기 전에 해당 줄만 실패로 남긴다
+    private static void validate(MemberImportRow row) {
+        if (!StringUtils.hasText(row.getUsername())) {
+            throw new IllegalArgumentException("username is required");
+        }
+    }
+
+    private MemberImportRow parseNdjson(String line, long lineNumber) {
+        try {
+            return objectMapper.readValue(line, MemberImportRow.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("invalid json: " + e.getOriginalMessage());
+        }
+    }
+
+    private MemberImportRow parseCsv(String line, long lineNumber) {
+        if (lineNumber == 1 && line.regionMatches(true, 0, "username", 0, "username".length())) {
+            return null;
+        }
+        String[] columns = line.split(",", -1);
+        if (columns.length != 3) {
+            throw new IllegalArgumentException("expected 3 columns (username,age,teamName) but was " + columns.length);
+        }
+        try {
+            return new MemberImportRow(columns[0].trim(), Integer.parseInt(columns[1].trim()), columns[2].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid age: " + columns[1]);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowParser {
+        //헤더처럼 건너뛸 줄이면 null
+        MemberImportRow parse(String line, long lineNumber);
+    }
+}
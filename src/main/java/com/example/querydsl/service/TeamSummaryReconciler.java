@@ -0,0 +1,164 @@
+package com.example.querydsl.service;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static com.example.querydsl.entity.QTeamSummary.teamSummary;
+
+import com.example.querydsl.dto.TeamSummaryReconcileResult;
+import com.example.querydsl.entity.TeamSummary;
+import com.example.querydsl.event.TeamSummaryListener;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * team_summary 를 회원 테이블 집계와 비교해서 어긋난 row 를 고친다.
+ * 팀 id 순으로 batch-size 개씩 나눠 batch 마다 별도 트랜잭션으로 처리하므로 한 번에 잡는 lock 은 batch 범위뿐이다.
+ * 요약 row 를 먼저 잠그고 집계하기 때문에 그 사이 커밋되는 증감은 집계 이후에 더해져 사라지지 않는다.
+ * 아직 없는 row 는 잠글 수 없으므로 리스너와 같은 merge 문으로 만든다. 동시에 만들어지면 나중 값이 이기고,
+ * 그때 빠진 증감은 다음 reconcile 에서 맞춰진다.
+ * 증감이 빠지는 경로(벌크 연산, 직접 SQL)가 있으므로 주기적으로 실행하고, 어긋난 수는 team_summary.drift 로 남긴다.
+ */
+@Slf4j
+@Service
+public class TeamSummaryReconciler {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final TeamSummaryListener teamSummaryListener;
+    private final Counter driftCounter;
+    private final int batchSize;
+
+    public TeamSummaryReconciler(EntityManager em,
+                                 TransactionTemplate transactionTemplate,
+                                 TeamSummaryListener teamSummaryListener,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${member.team-summary.reconcile.batch-size:500}") int batchSize) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.transactionTemplate = transactionTemplate;
+        this.teamSummaryListener = teamSummaryListener;
+        this.driftCounter = Counter.builder("team_summary.drift")
+                .description("reconcile 에서 고친 team_summary row 수")
+                .register(meterRegistry);
+        this.batchSize = batchSize;
+    }
+
+    //스케줄은 member.team-summary.reconcile.enabled 일 때만 동작한다 (TeamSummaryScheduleConfig)
+    //벌크 연산이 있었으면 check-millis 안에 맞춘다
+    @Scheduled(fixedDelayString = "${member.team-summary.reconcile.check-millis:10000}")
+    public void reconcileIfRequired() {
+        if (teamSummaryListener.takeReconcileRequired()) {
+            reconcile();
+        }
+    }
+
+    //증감이 빠지는 다른 경로(직접 SQL 등)는 full-interval 마다 전체를 확인해서 맞춘다
+    @Scheduled(fixedDelayString = "${member.team-summary.reconcile.full-interval-millis:3600000}",
+            initialDelayString = "${member.team-summary.reconcile.full-interval-millis:3600000}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    public TeamSummaryReconcileResult reconcile() {
+        long start = System.nanoTime();
+        TeamSummaryReconcileResult result = new TeamSummaryReconcileResult();
+        long lastTeamId = 0;
+        while (true) {
+            List<Long> teamIds = nextTeamIds(lastTeamId);
+            if (teamIds.isEmpty()) {
+                break;
+            }
+            transactionTemplate.executeWithoutResult(status -> reconcileBatch(teamIds, result));
+            result.checked(teamIds.size());
+            lastTeamId = teamIds.get(teamIds.size() - 1);
+        }
+        Long orphans = transactionTemplate.execute(status -> removeOrphans());
+        result.orphansRemoved(orphans == null ? 0 : orphans);
+        result.finish(System.nanoTime() - start);
+
+        driftCounter.increment(result.getTotalDrift());
+        if (result.getTotalDrift() > 0) {
+            log.warn("team_summary drift fixed: drifted={} missing={} orphans={} teamIds={}",
+                    result.getDriftedTeams(), result.getMissingRows(), result.getOrphanRows(),
+                    result.getDriftedTeamIds());
+        }
+        return result;
+    }
+
+    private List<Long> nextTeamIds(long lastTeamId) {
+        return queryFactory
+                .select(team.id)
+                .from(team)
+                .where(team.id.gt(lastTeamId))
+                .orderBy(team.id.asc())
+                .limit(batchSize)
+                .fetch();
+    }
+
+    private void reconcileBatch(List<Long> teamIds, TeamSummaryReconcileResult result) {
+        Map<Long, TeamSummary> summaries = queryFactory
+                .selectFrom(teamSummary)
+                .where(teamSummary.teamId.in(teamIds))
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .fetch().stream()
+                .collect(Collectors.toMap(TeamSummary::getTeamId, Function.identity()));
+        Map<Long, Tuple> actual = new HashMap<>();
+        for (Tuple row : queryFactory
+                .select(member.team.id, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(member)
+                .where(member.team.id.in(teamIds))
+                .groupBy(member.team.id)
+                .fetch()) {
+            actual.put(row.get(0, Long.class), row);
+        }
+
+        for (Long teamId : teamIds) {
+            Tuple row = actual.get(teamId);
+            long memberCount = row == null ? 0 : row.get(1, Long.class);
+            //Hibernate 는 int 컬럼의 sum 을 Long 으로 돌려준다
+            long ageSum = row == null ? 0 : row.get(2, Number.class).longValue();
+            Integer minAge = row == null ? null : row.get(3, Integer.class);
+            Integer maxAge = row == null ? null : row.get(4, Integer.class);
+
+            TeamSummary summary = summaries.get(teamId);
+            if (summary == null) {
+                //없는 row 는 잠글 수 없어서 리스너가 같은 row 를 동시에 만들 수 있다. merge 로 PK 충돌 없이 절대값을 쓴다
+                em.createNativeQuery(TeamSummaryListener.MERGE_FROM_MEMBERS)
+                        .setParameter(1, teamId)
+                        .setParameter(2, teamId)
+                        .unwrap(NativeQuery.class)
+                        .addSynchronizedEntityClass(TeamSummary.class)
+                        .executeUpdate();
+                result.missing(teamId);
+            } else if (!summary.matches(memberCount, ageSum, minAge, maxAge)) {
+                summary.reset(memberCount, ageSum, minAge, maxAge);
+                result.drifted(teamId);
+            }
+        }
+    }
+
+    //삭제된 팀의 요약 row (팀 벌크 삭제 등)
+    private long removeOrphans() {
+        return queryFactory
+                .delete(teamSummary)
+                .where(teamSummary.teamId.notIn(JPAExpressions.select(team.id).from(team)))
+                .execute();
+    }
+}
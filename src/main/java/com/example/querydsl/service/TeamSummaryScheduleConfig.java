@@ -0,0 +1,12 @@
+package com.example.querydsl.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+//테스트에서는 reconcile 이 예상하지 못한 시점에 돌지 않도록 기본값은 꺼 둔다
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "member.team-summary.reconcile.enabled", havingValue = "true")
+public class TeamSummaryScheduleConfig {
+}
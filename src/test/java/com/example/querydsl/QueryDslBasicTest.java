@@ -4,14 +4,17 @@ import static com.example.querydsl.entity.QMember.member;
 import static com.example.querydsl.entity.QTeam.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.filter;
+import static org.assertj.core.api.Assertions.tuple;
 
 import com.example.querydsl.dto.MemberDto;
 import com.example.querydsl.dto.MemberDto2;
+import com.example.querydsl.dto.MemberTeamDto;
 import com.example.querydsl.dto.QMemberDto2;
 import com.example.querydsl.dto.UserDto;
 import com.example.querydsl.entity.Member;
 import com.example.querydsl.entity.QMember;
 import com.example.querydsl.entity.Team;
+import com.example.querydsl.projection.FastProjections;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.Tuple;
 import com.querydsl.core.types.ExpressionUtils;
@@ -545,6 +548,33 @@ public class QueryDslBasicTest {
         }
     }
 
+    //리플렉션 없이 DTO 생성 (FastProjections) - @QueryProjection 없이도 된다
+    @Test
+    public void findDtoByFastProjections(){
+        List<MemberDto> beans = queryFactory
+                .select(FastProjections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .where(member.username.eq("member1"))
+                .fetch();
+        assertThat(beans).containsExactly(new MemberDto("member1", 10));
+
+        List<UserDto> users = queryFactory
+                .select(FastProjections.bean(UserDto.class, member.username.as("name"), member.age))
+                .from(member)
+                .where(member.username.eq("member1"))
+                .fetch();
+        assertThat(users).extracting("name", "age").containsExactly(tuple("member1", 10));
+
+        List<MemberTeamDto> memberTeams = queryFactory
+                .select(FastProjections.constructor(MemberTeamDto.class,
+                        member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .join(member.team, team)
+                .where(member.username.eq("member1"))
+                .fetch();
+        assertThat(memberTeams).extracting("username", "teamName").containsExactly(tuple("member1", "teamA"));
+    }
+
     //동적쿼리 : @BooleanBuilder
     //
 
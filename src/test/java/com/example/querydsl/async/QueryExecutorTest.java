@@ -0,0 +1,103 @@
+package com.example.querydsl.async;
+
+import static org.assertj.core.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class QueryExecutorTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    CountDownLatch release = new CountDownLatch(1);
+    QueryExecutor executor;
+
+    @AfterEach
+    public void after() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void rejectsWhenPoolAndQueueAreFull() throws Exception {
+        executor = new QueryExecutor(1, 1, 5000, false, meterRegistry);
+
+        CompletableFuture<String> running = executor.submit(this::blocked);
+        CompletableFuture<String> queued = executor.submit(this::blocked);
+        CompletableFuture<String> rejected = executor.submit(this::blocked);
+
+        assertThat(rejected).isCompletedExceptionally();
+        assertThatThrownBy(rejected::get).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(meterRegistry.counter("member.query.rejected").count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get()).isEqualTo("done");
+        assertThat(queued.get()).isEqualTo("done");
+    }
+
+    @Test
+    public void failsWithTimeout() {
+        executor = new QueryExecutor(1, 1, 50, false, meterRegistry);
+
+        CompletableFuture<String> slow = executor.submit(this::blocked);
+
+        assertThatThrownBy(slow::get)
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+        assertThat(meterRegistry.counter("member.query.timeout").count()).isEqualTo(1);
+    }
+
+    //virtual thread 처럼 작업마다 스레드를 만드는 executor 로 JDK 버전과 상관없이 확인한다
+    @Test
+    public void perTaskExecutorRunsAtMostPoolSizeQueries() throws Exception {
+        executor = new QueryExecutor(Executors.newCachedThreadPool(), 2, 10, 5000, meterRegistry);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(2);
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            futures.add(executor.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                started.countDown();
+                try {
+                    return blocked();
+                } finally {
+                    running.decrementAndGet();
+                }
+            }));
+        }
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        //나머지 작업이 (잘못) 시작될 시간을 준다
+        Thread.sleep(200);
+        assertThat(maxRunning.get()).isEqualTo(2);
+
+        //실행 중 2 + 대기 10 이 차 있으므로 거절된다
+        assertThat(executor.submit(this::blocked)).isCompletedExceptionally();
+
+        release.countDown();
+        for (CompletableFuture<String> future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+        }
+        assertThat(maxRunning.get()).isEqualTo(2);
+    }
+
+    private String blocked() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.querydsl.controller;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.event.MemberChangedEvent;
+import com.example.querydsl.monitoring.SqlStatementCounter;
+import com.example.querydsl.monitoring.SqlStatementScope;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+    @Autowired
+    SqlStatementCounter sqlStatementCounter;
+
+    @Test
+    public void notModifiedWithoutQuery() throws Exception {
+        em.persist(new Member("member1", 10, new Team("teamA")));
+        em.flush();
+
+        MockHttpServletResponse first = search(null);
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(etag).startsWith("W/");
+
+        try (SqlStatementScope scope = sqlStatementCounter.open("poll")) {
+            MockHttpServletResponse unchanged = search(etag);
+            assertThat(unchanged.getStatus()).isEqualTo(304);
+            assertThat(unchanged.getContentLength()).isZero();
+            assertThat(scope.getCount()).isZero();
+        }
+
+        //테스트 트랜잭션은 커밋되지 않으므로 커밋 후 이벤트를 직접 낸다
+        eventPublisher.publishEvent(MemberChangedEvent.teams(Set.of("teamA")));
+
+        MockHttpServletResponse changed = search(etag);
+        assertThat(changed.getStatus()).isEqualTo(200);
+        assertThat(changed.getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+    }
+
+    private MockHttpServletResponse search(String ifNoneMatch) throws Exception {
+        MockHttpServletRequestBuilder request = get("/v1/members").param("teamName", "teamA");
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.querydsl.datasource;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.repository.MemberJpaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 서로 다른 H2 두 개를 primary / replica 로 쓴다.
+ * 둘 사이에 복제가 없으므로 replicate() 를 부르기 전까지 replica 는 primary 의 변경을 모른다 (복제 지연 흉내).
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routingPrimary",
+        "member.datasource.routing.enabled=true",
+        "member.datasource.replica.jdbc-url=jdbc:h2:mem:routingReplica;DB_CLOSE_DELAY=-1",
+        "member.datasource.replica.username=sa"
+})
+class DataSourceRoutingTest {
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    DataSource primaryDataSource;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    DataSource replicaDataSource;
+
+    @Test
+    public void readOnlyTransactionGoesToReplica() {
+        replicate();
+        Member member = new Member("member1", 10);
+        memberJpaRepository.save(member);
+
+        double replicaRoutes = routes("replica");
+        //아직 복제되지 않아서 replica 에는 없다
+        assertThat(memberJpaRepository.findById(member.getId())).isEmpty();
+        assertThat(routes("replica")).isEqualTo(replicaRoutes + 1);
+
+        replicate();
+        assertThat(memberJpaRepository.findById(member.getId())).isPresent();
+    }
+
+    @Test
+    public void readYourWritesWithinRequest() {
+        replicate();
+        Member member = new Member("member2", 20);
+
+        ReadYourWrites.begin();
+        try {
+            memberJpaRepository.save(member);
+            double primaryRoutes = routes("primary");
+            //같은 요청에서 쓴 데이터는 primary 에서 읽는다
+            assertThat(memberJpaRepository.findById(member.getId())).isPresent();
+            assertThat(routes("primary")).isEqualTo(primaryRoutes + 1);
+        } finally {
+            ReadYourWrites.end();
+        }
+
+        //요청이 끝나면 다시 replica
+        assertThat(memberJpaRepository.findById(member.getId())).isEmpty();
+    }
+
+    private double routes(String route) {
+        return meterRegistry.get("datasource.route").tag("route", route).counter().count();
+    }
+
+    //primary 를 SCRIPT 로 떠서 replica 에 그대로 다시 만든다
+    private void replicate() {
+        List<String> script = new JdbcTemplate(primaryDataSource).queryForList("script", String.class);
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("drop all objects");
+        script.stream()
+                .filter(sql -> !sql.startsWith("--"))
+                .forEach(replica::execute);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.querydsl.event;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class MemberDataVersionTest {
+
+    MemberDataVersion dataVersion = new MemberDataVersion();
+
+    @Test
+    public void teamScopedVersion() {
+        MemberSearchCondition teamA = teamCondition("teamA");
+        MemberSearchCondition noTeam = new MemberSearchCondition();
+        String teamAEtag = dataVersion.etag(teamA, null);
+        String noTeamEtag = dataVersion.etag(noTeam, null);
+
+        dataVersion.on(MemberChangedEvent.teams(Set.of("teamB")));
+
+        assertThat(dataVersion.etag(teamA, null)).isEqualTo(teamAEtag);
+        assertThat(dataVersion.etag(noTeam, null)).isNotEqualTo(noTeamEtag);
+
+        dataVersion.on(MemberChangedEvent.all());
+
+        assertThat(dataVersion.etag(teamA, null)).isNotEqualTo(teamAEtag);
+    }
+
+    @Test
+    public void etagDependsOnConditionAndRepresentation() {
+        String etag = dataVersion.etag(teamCondition("teamA"), "application/json");
+
+        assertThat(etag).startsWith("W/\"");
+        assertThat(dataVersion.etag(teamCondition("teamA"), "application/json")).isEqualTo(etag);
+        assertThat(dataVersion.etag(teamCondition("teamB"), "application/json")).isNotEqualTo(etag);
+        assertThat(dataVersion.etag(teamCondition("teamA"), "application/x-member-binary")).isNotEqualTo(etag);
+    }
+
+    private MemberSearchCondition teamCondition(String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        return condition;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.querydsl.event;
+
+import static com.example.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.TeamStatsDto;
+import com.example.querydsl.dto.TeamSummaryReconcileResult;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.entity.TeamSummary;
+import com.example.querydsl.repository.MemberJpaRepository;
+import com.example.querydsl.repository.TeamSummaryRepository;
+import com.example.querydsl.service.TeamSummaryReconciler;
+import com.example.querydsl.support.TestDataCleaner;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+//요약은 커밋 직전에 반영되므로 테스트 트랜잭션 없이 돌리고 끝나면 지운다
+@SpringBootTest
+class TeamSummaryListenerTest {
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    TeamSummaryRepository teamSummaryRepository;
+    @Autowired
+    TeamSummaryReconciler teamSummaryReconciler;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TestDataCleaner testDataCleaner;
+
+    Long teamAId;
+    Long teamBId;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team summaryA = new Team("summaryA");
+            Team summaryB = new Team("summaryB");
+            em.persist(new Member("summary1", 10, summaryA));
+            em.persist(new Member("summary2", 20, summaryA));
+            em.persist(new Member("summary3", 30, summaryB));
+            em.persist(new Member("summary4", 40, summaryB));
+            teamAId = summaryA.getId();
+            teamBId = summaryB.getId();
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        testDataCleaner.deleteByPrefix("summary");
+    }
+
+    @Test
+    public void insertCreatesSummary() {
+        assertSummary(teamAId, 2, 30, 10, 20);
+        assertSummary(teamBId, 2, 70, 30, 40);
+    }
+
+    @Test
+    public void changeTeamMovesCountsAndAges() {
+        transactionTemplate.executeWithoutResult(status -> findMember("summary2").changeTeam(em.find(Team.class, teamBId)));
+
+        assertSummary(teamAId, 1, 10, 10, 10);
+        assertSummary(teamBId, 3, 90, 20, 40);
+        assertMatchesTeamStats("summaryA", teamAId);
+        assertMatchesTeamStats("summaryB", teamBId);
+    }
+
+    @Test
+    public void deleteAndRollback() {
+        memberJpaRepository.delete(findMember("summary1"));
+        assertSummary(teamAId, 1, 20, 20, 20);
+
+        //롤백된 트랜잭션의 증감은 반영되지 않는다
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("summary5", 50, em.find(Team.class, teamAId)));
+            em.flush();
+            status.setRollbackOnly();
+        });
+        assertSummary(teamAId, 1, 20, 20, 20);
+
+        memberJpaRepository.delete(findMember("summary2"));
+        assertSummary(teamAId, 0, 0, null, null);
+    }
+
+    //준영속 회원의 바뀐 값이 아니라 저장된 값만큼 빠져야 한다
+    @Test
+    public void deleteOfStaleDetachedMemberUsesStoredState() {
+        Member detached = findMember("summary1");
+        detached.setAge(99);
+        detached.setTeam(em.getReference(Team.class, teamBId));
+
+        memberJpaRepository.delete(detached);
+
+        assertSummary(teamAId, 1, 20, 20, 20);
+        assertSummary(teamBId, 2, 70, 30, 40);
+    }
+
+    @Test
+    public void reconcileFixesDriftFromBulkUpdate() {
+        //벌크 연산은 엔티티 이벤트가 없어 요약이 어긋난다
+        memberJpaRepository.bulkUpdate(update -> update.set(member.age, 35), member.username.eq("summary3"));
+        assertSummary(teamBId, 2, 70, 30, 40);
+
+        TeamSummaryReconcileResult result = teamSummaryReconciler.reconcile();
+
+        assertThat(result.getDriftedTeamIds()).contains(teamBId).doesNotContain(teamAId);
+        assertSummary(teamBId, 2, 75, 35, 40);
+        assertThat(teamSummaryReconciler.reconcile().getDriftedTeamIds()).doesNotContain(teamBId);
+    }
+
+    private void assertSummary(Long teamId, long memberCount, long ageSum, Integer minAge, Integer maxAge) {
+        TeamSummary summary = teamSummaryRepository.findById(teamId).orElseThrow();
+        assertThat(summary.matches(memberCount, ageSum, minAge, maxAge))
+                .as("%s", summary)
+                .isTrue();
+    }
+
+    //증감으로 유지한 요약이 회원 테이블 group by 결과와 같아야 한다
+    private void assertMatchesTeamStats(String teamName, Long teamId) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        List<TeamStatsDto> expected = memberJpaRepository.teamStats(condition);
+        List<TeamStatsDto> actual = teamSummaryRepository.findAllStats().stream()
+                .filter(stats -> stats.getTeamId().equals(teamId))
+                .collect(Collectors.toList());
+        assertThat(actual).usingRecursiveFieldByFieldElementComparator().isEqualTo(expected);
+    }
+
+    private Member findMember(String username) {
+        return new JPAQueryFactory(em).selectFrom(member).where(member.username.eq(username)).fetchOne();
+    }
+}
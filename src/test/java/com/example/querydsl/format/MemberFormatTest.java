@@ -0,0 +1,102 @@
+package com.example.querydsl.format;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberFormatTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    public void before() {
+        em.persist(new Member("member1", 10, new Team("teamA")));
+        em.persist(new Member("member2", 20));
+        em.flush();
+    }
+
+    @Test
+    public void defaultIsJsonArray() throws Exception {
+        MockHttpServletResponse response = search(MediaType.ALL_VALUE);
+
+        assertThat(response.getContentType()).startsWith(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(objectMapper.readTree(response.getContentAsByteArray()).isArray()).isTrue();
+    }
+
+    @Test
+    public void columnarJson() throws Exception {
+        MockHttpServletResponse response = search(MemberMediaTypes.COLUMNAR_JSON_VALUE);
+
+        assertThat(response.getContentType()).startsWith(MemberMediaTypes.COLUMNAR_JSON_VALUE);
+        JsonNode columns = objectMapper.readTree(response.getContentAsByteArray());
+        assertThat(columns.get("count").asInt()).isEqualTo(2);
+        assertThat(columns.get("username").get(0).asText()).isEqualTo("member1");
+        assertThat(columns.get("teamName").get(0).asText()).isEqualTo("teamA");
+        assertThat(columns.get("teamId").get(1).isNull()).isTrue();
+    }
+
+    @Test
+    public void binary() throws Exception {
+        MockHttpServletResponse response = search(MemberMediaTypes.BINARY_VALUE);
+
+        assertThat(response.getContentType()).startsWith(MemberMediaTypes.BINARY_VALUE);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(response.getContentAsByteArray()));
+        assertThat(in.readInt()).isEqualTo(2);
+
+        assertThat(in.readLong()).isPositive();
+        assertThat(readString(in)).isEqualTo("member1");
+        assertThat(in.readInt()).isEqualTo(10);
+        assertThat(in.readLong()).isPositive();
+        assertThat(readString(in)).isEqualTo("teamA");
+
+        assertThat(in.readLong()).isPositive();
+        assertThat(readString(in)).isEqualTo("member2");
+        assertThat(in.readInt()).isEqualTo(20);
+        assertThat(in.readLong()).isEqualTo(-1);
+        assertThat(readString(in)).isNull();
+        assertThat(in.available()).isZero();
+    }
+
+    private MockHttpServletResponse search(String accept) throws Exception {
+        return mockMvc.perform(get("/v1/members").param("ageLoe", "100")
+                        .accept(accept))
+                .andReturn()
+                .getResponse();
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
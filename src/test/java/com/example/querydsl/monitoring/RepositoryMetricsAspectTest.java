@@ -0,0 +1,60 @@
+package com.example.querydsl.monitoring;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.repository.MemberJpaRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@Transactional
+class RepositoryMetricsAspectTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    public void timesRepositoryCallsByShape() {
+        Team teamA = new Team("teamA");
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(15);
+
+        //다른 테스트와 컨텍스트(레지스트리)를 같이 쓰므로 증가분으로 확인한다
+        Timer timer = Timer.builder("repository.query")
+                .tags("repository", "MemberJpaRepository", "method", "searchByWhere", "shape", "teamName+ageGoe")
+                .register(meterRegistry);
+        DistributionSummary streamedRows = DistributionSummary.builder("repository.query.rows")
+                .tags("repository", "MemberJpaRepository", "method", "streamByWhere", "shape", "teamName+ageGoe")
+                .register(meterRegistry);
+        long calls = timer.count();
+        double rows = streamedRows.totalAmount();
+
+        memberJpaRepository.searchByWhere(condition);
+        memberJpaRepository.streamByWhere(condition, 10, new ArrayList<>()::add);
+
+        assertThat(timer.count()).isEqualTo(calls + 1);
+        assertThat(streamedRows.totalAmount()).isEqualTo(rows + 1);
+
+        //값은 태그에 남지 않는다
+        assertThat(meterRegistry.find("repository.query").meters())
+                .allSatisfy(meter -> assertThat(meter.getId().getTags()).noneMatch(tag -> tag.getValue().contains("teamA")));
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.querydsl.monitoring;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.repository.MemberJpaRepository;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Optional;
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+//threshold 0 으로 모든 select 를 느린 쿼리로 취급한다
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:slowQueryTest",
+        "member.slow-query.threshold-millis=0"
+})
+@Transactional
+class SlowQueryLogTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    SlowQueryLog slowQueryLog;
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    public void capturesSqlWithPlan() throws InterruptedException {
+        em.persist(new Member("member1", 10, new Team("teamA")));
+        em.flush();
+        slowQueryLog.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(5);
+        memberJpaRepository.searchByWhere(condition);
+
+        Optional<SlowQuery> captured = slowQueryLog.recent().stream()
+                .filter(slowQuery -> slowQuery.getSql().contains("member"))
+                .findFirst();
+        assertThat(captured).isPresent();
+        SlowQuery slowQuery = captured.get();
+        assertThat(slowQuery.getParameterTypes()).containsExactly("String", "Integer");
+
+        //EXPLAIN ANALYZE 는 별도 스레드에서 채워진다
+        for (int i = 0; i < 50 && slowQuery.getPlan() == null; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(slowQuery.getPlan())
+                .isNotNull()
+                .doesNotStartWith("explain failed")
+                .containsIgnoringCase("idx_team_name");
+    }
+
+    //setNull 의 두 번째 인자(JDBC 타입 코드)를 값으로 쓰면 다른 쿼리의 계획이 남는다
+    @Test
+    public void nullParameterIsReplayedAsNull() throws Exception {
+        slowQueryLog.clear();
+
+        select("select member_id from member where username = ?", statement -> statement.setNull(1, Types.VARCHAR));
+
+        SlowQuery slowQuery = captured("where username = ?");
+        assertThat(slowQuery.getParameterTypes()).containsExactly("null");
+        waitForPlan(slowQuery);
+        assertThat(slowQuery.getPlan()).isNotNull().doesNotStartWith("explain failed");
+    }
+
+    @Test
+    public void streamParameterSkipsExplain() throws Exception {
+        slowQueryLog.clear();
+
+        select("select member_id from member where username = ?",
+                statement -> statement.setCharacterStream(1, new StringReader("member1")));
+
+        SlowQuery slowQuery = captured("where username = ?");
+        assertThat(slowQuery.getParameterTypes()).containsExactly("setCharacterStream");
+        assertThat(slowQuery.getPlan()).isEqualTo(SlowQueryLog.SKIPPED);
+    }
+
+    private void select(String sql, ParameterBinder binder) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            binder.bind(statement);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    rs.getLong(1);
+                }
+            }
+        }
+    }
+
+    private SlowQuery captured(String sqlPart) {
+        Optional<SlowQuery> captured = slowQueryLog.recent().stream()
+                .filter(slowQuery -> slowQuery.getSql().contains(sqlPart))
+                .findFirst();
+        assertThat(captured).isPresent();
+        return captured.get();
+    }
+
+    private static void waitForPlan(SlowQuery slowQuery) throws InterruptedException {
+        for (int i = 0; i < 50 && slowQuery.getPlan() == null; i++) {
+            Thread.sleep(100);
+        }
+    }
+
+    interface ParameterBinder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.querydsl.repository;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QMemberTrigram.memberTrigram;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.querydsl.dto.MemberChunkedBulkResult;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.support.TestDataCleaner;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+//구간마다 커밋되므로 테스트 트랜잭션 없이 돌리고 끝나면 지운다
+@SpringBootTest
+class MemberChunkedBulkTest {
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TestDataCleaner testDataCleaner;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team chunkA = new Team("chunkA");
+            Team chunkB = new Team("chunkB");
+            for (int i = 1; i <= 20; i++) {
+                em.persist(new Member("chunk" + i, i, i % 2 == 1 ? chunkA : chunkB));
+            }
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        testDataCleaner.deleteByPrefix("chunk");
+    }
+
+    @Test
+    public void updateInParallelChunks() {
+        MemberSearchCondition condition = teamCondition("chunkA");
+
+        MemberChunkedBulkResult result = memberJpaRepository.bulkUpdateInChunks(condition,
+                update -> update.set(member.age, member.age.add(100)), 5, 3);
+
+        assertThat(result.getAffectedRows()).isEqualTo(10);
+        assertThat(result.getFailedChunks()).isZero();
+        assertThat(result.getChunks()).hasSizeGreaterThan(1);
+        assertThat(result.getChunks()).extracting(MemberChunkedBulkResult.Chunk::getFromId).isSorted();
+        assertThat(ages("chunkA")).allMatch(age -> age > 100);
+        assertThat(ages("chunkB")).allMatch(age -> age <= 20);
+    }
+
+    @Test
+    public void renameInChunksReindexesTrigrams() {
+        MemberChunkedBulkResult result = memberJpaRepository.bulkRenameInChunks(teamCondition("chunkA"),
+                member.username.concat("zz"), 5, 2);
+        assertThat(result.getFailedChunks()).isZero();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains("9zz");
+        assertThat(memberJpaRepository.searchByWhere(condition))
+                .extracting(MemberTeamDto::getUsername)
+                .containsExactlyInAnyOrder("chunk9zz", "chunk19zz");
+    }
+
+    @Test
+    public void deleteInChunks() {
+        MemberSearchCondition condition = teamCondition("chunkB");
+        condition.setAgeGoe(11);
+
+        MemberChunkedBulkResult result = memberJpaRepository.bulkDeleteInChunks(condition, 3, 1);
+
+        assertThat(result.getAffectedRows()).isEqualTo(5);
+        assertThat(ages("chunkB")).containsExactlyInAnyOrder(2, 4, 6, 8, 10);
+        assertThat(ages("chunkA")).hasSize(10);
+        //지운 회원의 trigram 도 같은 구간 트랜잭션에서 지워진다
+        assertThat(orphanTrigrams()).isZero();
+    }
+
+    @Test
+    public void refusesToJoinTransaction() {
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                memberJpaRepository.bulkDeleteInChunks(teamCondition("chunkA"), 5, 1)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private List<Integer> ages(String teamName) {
+        return transactionTemplate.execute(status -> new JPAQueryFactory(em)
+                .select(member.age)
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq(teamName))
+                .fetch());
+    }
+
+    private long orphanTrigrams() {
+        return transactionTemplate.execute(status -> new JPAQueryFactory(em)
+                .select(memberTrigram.count())
+                .from(memberTrigram)
+                .where(memberTrigram.memberId.notIn(JPAExpressions.select(member.id).from(member)))
+                .fetchOne());
+    }
+
+    private MemberSearchCondition teamCondition(String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        return condition;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.querydsl.repository;
+
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.support.TestDataCleaner;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+//content 와 count 가 각자 트랜잭션을 열어야 커밋된 데이터를 보므로 테스트 트랜잭션 없이 돌리고 끝나면 지운다
+@SpringBootTest
+class MemberConcurrentPageTest {
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TestDataCleaner testDataCleaner;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team concurrentA = new Team("concurrentA");
+            Team concurrentB = new Team("concurrentB");
+            for (int i = 1; i <= 10; i++) {
+                em.persist(new Member("concurrent" + i, i * 10, i <= 7 ? concurrentA : concurrentB));
+            }
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        testDataCleaner.deleteByPrefix("concurrent");
+    }
+
+    @Test
+    public void sameResultAsSequentialPage() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("concurrentA");
+
+        //정렬이 없으면 memberId 순서, 있으면 정렬 뒤에 memberId 순서로 정해지므로 다른 커넥션에서 읽어도 순서가 같다
+        for (Sort sort : List.of(Sort.unsorted(), Sort.by(Sort.Direction.DESC, "age"))) {
+            List<String> usernames = new ArrayList<>();
+            for (int page = 0; page < 4; page++) {
+                PageRequest pageable = PageRequest.of(page, 3, sort);
+                Page<MemberTeamDto> concurrent = memberJpaRepository.searchPageConcurrently(condition, pageable);
+                Page<MemberTeamDto> sequential = memberJpaRepository.searchPage(condition, pageable);
+
+                assertThat(concurrent.getContent()).isEqualTo(sequential.getContent());
+                assertThat(concurrent.getTotalElements()).isEqualTo(7);
+                concurrent.getContent().forEach(dto -> usernames.add(dto.getUsername()));
+            }
+            List<String> expected = new ArrayList<>();
+            for (int i = 1; i <= 7; i++) {
+                expected.add("concurrent" + i);
+            }
+            if (sort.isSorted()) {
+                Collections.reverse(expected);
+            }
+            assertThat(usernames).as(sort.toString()).containsExactlyElementsOf(expected);
+        }
+    }
+
+    //트랜잭션 안에서는 커밋 전 변경도 보여야 하므로 같은 트랜잭션에서 순차 실행된다
+    @Test
+    public void seesUncommittedChangesInsideTransaction() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("concurrentB");
+
+        Long total = transactionTemplate.execute(status -> {
+            Team concurrentB = new JPAQueryFactory(em).selectFrom(team).where(team.name.eq("concurrentB")).fetchOne();
+            em.persist(new Member("concurrent11", 110, concurrentB));
+            long result = memberJpaRepository.searchPageConcurrently(condition, PageRequest.of(0, 2)).getTotalElements();
+            status.setRollbackOnly();
+            return result;
+        });
+
+        assertThat(total).isEqualTo(4);
+    }
+}
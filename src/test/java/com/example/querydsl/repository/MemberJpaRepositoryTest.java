@@ -1,20 +1,36 @@
 package com.example.querydsl.repository;
 
 import static org.assertj.core.api.Assertions.*;
+import static com.example.querydsl.support.SqlStatementBudget.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.example.querydsl.dto.MemberCursorPage;
 import com.example.querydsl.dto.MemberSearchCondition;
 import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.dto.TeamStatsDto;
+import com.example.querydsl.dto.TeamStatsResponse;
 import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.QMember;
+import com.example.querydsl.entity.QMemberTrigram;
 import com.example.querydsl.entity.Team;
+import com.example.querydsl.monitoring.SqlStatementCounter;
+import com.example.querydsl.monitoring.SqlStatementScope;
+import com.querydsl.core.types.dsl.Expressions;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
+import org.hibernate.Session;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 
 @SpringBootTest
@@ -25,6 +41,8 @@ class MemberJpaRepositoryTest {
     EntityManager em;
     @Autowired
     MemberJpaRepository memberJpaRepository;
+    @Autowired
+    SqlStatementCounter sqlStatementCounter;
 
     @Test
     public void basicTest(){
@@ -111,4 +129,333 @@ class MemberJpaRepositoryTest {
 
         assertThat(result).extracting("username").containsExactly("member4");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void searchByCursorTest(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 20, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        MemberCursorPage first = memberJpaRepository.searchByCursor(condition, null, 2);
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2");
+        assertThat(first.getNextCursor()).isNotNull();
+
+        //같은 age(20) 안에서는 memberId 순서로 이어서 조회된다
+        MemberCursorPage second = memberJpaRepository.searchByCursor(condition, first.getNextCursor(), 2);
+        assertThat(second.getContent()).extracting("username").containsExactly("member3", "member4");
+        assertThat(second.getNextCursor()).isNull();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> memberJpaRepository.searchByCursor(condition, "not-a-cursor", 2));
+    }
+
+    @Test
+    public void searchPageTest(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        em.persist(new Member("member5", 20, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        //정렬 조건이 없으면 memberId 순서
+        Page<MemberTeamDto> result = memberJpaRepository.searchPage(condition, PageRequest.of(0, 3));
+        assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(result.getTotalElements()).isEqualTo(5);
+
+        //같은 age(20) 끼리는 memberId 순서로 이어져서 페이지 사이에 빠지거나 중복되지 않는다
+        Sort byAgeDesc = Sort.by(Sort.Direction.DESC, "age");
+        List<String> pages = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            pages.addAll(usernames(memberJpaRepository.searchPage(condition, PageRequest.of(page, 2, byAgeDesc)).getContent()));
+        }
+        assertThat(pages).containsExactly("member4", "member3", "member2", "member5", "member1");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> memberJpaRepository.searchPage(condition, PageRequest.of(0, 2, Sort.by("unknown"))));
+
+        condition.setTeamName("teamB");
+        Page<MemberTeamDto> teamBPage = memberJpaRepository.searchPage(condition, PageRequest.of(0, 1));
+        assertThat(teamBPage.getContent()).extracting("username").containsExactly("member3");
+        assertThat(teamBPage.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    public void streamByWhereTest(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        memberJpaRepository.streamByWhere(condition, 1, result::add);
+
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("member3", "member4");
+    }
+
+    @Test
+    public void searchAllShapesTest(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        List<Member> members = List.of(
+                new Member("member1", 10, teamA),
+                new Member("member2", 20, teamA),
+                new Member("member3", 30, teamB),
+                new Member("member4", 40, teamB),
+                new Member("member5", 50));
+        members.forEach(em::persist);
+
+        //64가지 조건 조합 모두 캐시된 JPQL(searchByWhere) 과 값을 넣은 Querydsl 쿼리(searchPage) 가 조건대로 걸러야 한다
+        for (int shape = 0; shape < MemberSearchShape.SHAPE_COUNT; shape++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            if (MemberSearchShape.has(shape, MemberSearchShape.USERNAME)) {
+                condition.setUsername("member3");
+            }
+            if (MemberSearchShape.has(shape, MemberSearchShape.USERNAME_PREFIX)) {
+                condition.setUsernameStartsWith("member");
+            }
+            if (MemberSearchShape.has(shape, MemberSearchShape.USERNAME_CONTAINS)) {
+                condition.setUsernameContains("mber3");
+            }
+            if (MemberSearchShape.has(shape, MemberSearchShape.TEAM_NAME)) {
+                condition.setTeamName("teamB");
+            }
+            if (MemberSearchShape.has(shape, MemberSearchShape.AGE_GOE)) {
+                condition.setAgeGoe(15);
+            }
+            if (MemberSearchShape.has(shape, MemberSearchShape.AGE_LOE)) {
+                condition.setAgeLoe(35);
+            }
+
+            List<String> expected = members.stream()
+                    .filter(member -> matches(member, condition))
+                    .map(Member::getUsername)
+                    .collect(Collectors.toList());
+            assertThat(usernames(memberJpaRepository.searchByWhere(condition)))
+                    .as(MemberSearchShape.describe(shape))
+                    .containsExactlyInAnyOrderElementsOf(expected);
+            assertThat(usernames(memberJpaRepository.searchPage(condition, PageRequest.of(0, 10)).getContent()))
+                    .as(MemberSearchShape.describe(shape))
+                    .containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    public void lazyTeamAccessIsBatched(){
+        persistMembersOfFourTeams();
+
+        List<Member> members = assertStatementBudget(sqlStatementCounter, 1,
+                () -> memberJpaRepository.findAll_queryDsl());
+
+        //default_batch_fetch_size 덕분에 팀 수와 상관없이 in (...) 쿼리 한 번으로 초기화된다
+        try (SqlStatementScope scope = sqlStatementCounter.open("test")) {
+            for (Member member : members) {
+                member.getTeam().getName();
+            }
+            assertThat(scope.getCount()).isEqualTo(1);
+            assertThat(scope.getRepeatedSelects()).isEmpty();
+        }
+    }
+
+    @Test
+    public void findAllWithEntityGraph(){
+        persistMembersOfFourTeams();
+
+        List<Member> members = assertStatementBudget(sqlStatementCounter, 1,
+                () -> memberJpaRepository.findAll_queryDsl_entityGraph());
+        List<Member> jpqlMembers = assertStatementBudget(sqlStatementCounter, 1,
+                () -> memberJpaRepository.findAll_entityGraph());
+
+        assertThat(members).hasSize(4);
+        assertThat(jpqlMembers).hasSize(4);
+        assertStatementBudget(sqlStatementCounter, 0, () -> members.stream()
+                .map(member -> member.getTeam().getName())
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void readOnlyFindersSkipDirtyChecking(){
+        persistMembersOfFourTeams();
+
+        List<Member> members = memberJpaRepository.findAll_readOnly();
+        Member byId = memberJpaRepository.findById_readOnly(members.get(0).getId()).get();
+        Session session = em.unwrap(Session.class);
+        assertThat(members).allMatch(session::isReadOnly);
+        assertThat(session.isReadOnly(byId)).isTrue();
+        assertThat(session.isDefaultReadOnly()).isFalse();
+
+        //read-only 엔티티는 바꿔도 update 되지 않는다
+        members.forEach(member -> member.setAge(99));
+        em.flush();
+        em.clear();
+
+        assertThat(memberJpaRepository.findByUsername_readOnly("member1"))
+                .extracting("age")
+                .containsExactly(10);
+    }
+
+    @Test
+    public void findAllStateless(){
+        persistMembersOfFourTeams();
+
+        List<Member> members = memberJpaRepository.findAll_stateless();
+
+        assertThat(members).hasSize(4);
+        assertThat(members).noneMatch(em::contains);
+        assertThat(members).extracting(member -> member.getTeam().getName())
+                .containsExactlyInAnyOrder("team1", "team2", "team3", "team4");
+    }
+
+    @Test
+    public void teamStatsTest(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 21, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+        em.flush();
+        em.clear();
+
+        List<TeamStatsDto> stats = assertStatementBudget(sqlStatementCounter, 1,
+                () -> memberJpaRepository.teamStats(new MemberSearchCondition()));
+
+        assertThat(stats).extracting("teamName").containsExactly("teamA", "teamB", null);
+        TeamStatsDto statsA = stats.get(0);
+        assertThat(statsA.getMemberCount()).isEqualTo(2);
+        assertThat(statsA.getAvgAge()).isEqualTo(15.5);
+        assertThat(statsA.getMinAge()).isEqualTo(10);
+        assertThat(statsA.getMaxAge()).isEqualTo(21);
+
+        TeamStatsDto total = new TeamStatsResponse(stats).getTotal();
+        assertThat(total.getMemberCount()).isEqualTo(5);
+        assertThat(total.getAvgAge()).isCloseTo(30.2, within(1e-9));
+        assertThat(total.getMinAge()).isEqualTo(10);
+        assertThat(total.getMaxAge()).isEqualTo(50);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(35);
+        assertThat(memberJpaRepository.teamStats(condition))
+                .extracting("teamName", "memberCount")
+                .containsExactly(tuple("teamB", 1L));
+    }
+
+    @Test
+    public void usernamePrefixAndContainsSearch(){
+        Team teamA = new Team("teamA");
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member10", 20, teamA));
+        em.persist(new Member("member2", 30, teamA));
+        em.persist(new Member("xmember1", 40, teamA));
+        em.persist(new Member("mem%ber", 50, teamA));
+
+        assertThat(usernames(search(condition -> condition.setUsernameStartsWith("member1"))))
+                .containsExactlyInAnyOrder("member1", "member10");
+        assertThat(usernames(search(condition -> condition.setUsernameContains("ber1"))))
+                .containsExactlyInAnyOrder("member1", "member10", "xmember1");
+        //trigram 이 없는 짧은 검색어는 like 로만 찾는다
+        assertThat(usernames(search(condition -> condition.setUsernameContains("r1"))))
+                .containsExactlyInAnyOrder("member1", "member10", "xmember1");
+        //like 의 특수 문자는 그대로의 문자로 찾는다
+        assertThat(usernames(search(condition -> condition.setUsernameContains("m%b"))))
+                .containsExactly("mem%ber");
+
+        //username 을 바꾸면 trigram 도 바뀐다
+        Member member2 = new JPAQueryFactory(em)
+                .selectFrom(QMember.member)
+                .where(QMember.member.username.eq("member2"))
+                .fetchOne();
+        member2.setUsername("renamed");
+        assertThat(search(condition -> condition.setUsernameContains("ber2"))).isEmpty();
+        assertThat(usernames(search(condition -> condition.setUsernameContains("named"))))
+                .containsExactly("renamed");
+    }
+
+    //벌크 update 는 엔티티 이벤트가 없어도 바뀐 username 으로 찾을 수 있어야 한다
+    @Test
+    public void bulkRenameReindexesTrigrams(){
+        Team teamA = new Team("teamA");
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+
+        memberJpaRepository.bulkRename(Expressions.constant("renamed1"), QMember.member.username.eq("member1"));
+
+        assertThat(usernames(search(condition -> condition.setUsernameContains("named1"))))
+                .containsExactly("renamed1");
+        assertThat(search(condition -> condition.setUsernameContains("mber1"))).isEmpty();
+        assertThat(usernames(search(condition -> condition.setUsernameContains("mber2"))))
+                .containsExactly("member2");
+    }
+
+    //member_trigram 에는 FK 가 없어서 벌크 delete 가 직접 지우지 않으면 trigram 이 계속 남는다
+    @Test
+    public void bulkDeleteRemovesTrigrams(){
+        Member member1 = new Member("member1", 10);
+        em.persist(member1);
+        em.persist(new Member("member2", 20));
+        em.flush();
+
+        memberJpaRepository.bulkDelete(QMember.member.username.eq("member1"));
+
+        JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+        assertThat(queryFactory.selectFrom(QMemberTrigram.memberTrigram)
+                .where(QMemberTrigram.memberTrigram.memberId.eq(member1.getId()))
+                .fetch()).isEmpty();
+        assertThat(usernames(search(condition -> condition.setUsernameContains("mber"))))
+                .containsExactly("member2");
+    }
+
+    private List<MemberTeamDto> search(Consumer<MemberSearchCondition> setter) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        setter.accept(condition);
+        List<MemberTeamDto> result = memberJpaRepository.searchByWhere(condition);
+        //3글자 미만 검색어는 캐시된 JPQL 대신 Querydsl 로 실행되므로 두 경로를 같이 확인한다
+        assertThat(memberJpaRepository.searchPage(condition, PageRequest.of(0, 100)).getContent())
+                .containsExactlyInAnyOrderElementsOf(result);
+        return result;
+    }
+
+    private static boolean matches(Member member, MemberSearchCondition condition) {
+        String username = member.getUsername();
+        String teamName = member.getTeam() == null ? null : member.getTeam().getName();
+        return (condition.getUsername() == null || username.equals(condition.getUsername()))
+                && (condition.getUsernameStartsWith() == null || username.startsWith(condition.getUsernameStartsWith()))
+                && (condition.getUsernameContains() == null || username.contains(condition.getUsernameContains()))
+                && (condition.getTeamName() == null || condition.getTeamName().equals(teamName))
+                && (condition.getAgeGoe() == null || member.getAge() >= condition.getAgeGoe())
+                && (condition.getAgeLoe() == null || member.getAge() <= condition.getAgeLoe());
+    }
+
+    private static List<String> usernames(List<MemberTeamDto> result) {
+        return result.stream().map(MemberTeamDto::getUsername).collect(Collectors.toList());
+    }
+
+    private void persistMembersOfFourTeams() {
+        for (int i = 1; i <= 4; i++) {
+            em.persist(new Member("member" + i, i * 10, new Team("team" + i)));
+        }
+        em.flush();
+        em.clear();
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.MemberTrigram;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.monitoring.SqlStatementCounter;
+import com.example.querydsl.monitoring.SqlStatementScope;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 검색 조건 조합(shape)마다 실제로 나가는 SQL 의 H2 실행 계획을 확인한다.
+ * 인덱스를 지우거나 조인/조건을 바꿔서 table scan 으로 떨어지면 실패한다.
+ */
+@SpringBootTest
+@Transactional
+class MemberSearchPlanTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    SqlStatementCounter sqlStatementCounter;
+
+    @BeforeEach
+    public void before() {
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            teams.add(team);
+        }
+        for (int i = 0; i < 1000; i++) {
+            em.persist(new Member("member" + i, i % 100, teams.get(i % teams.size())));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    //조건이 하나도 없는 shape 는 전체 조회라 table scan 이 정상이므로 1 부터 본다
+    @Test
+    public void everySearchShapeUsesIndex() {
+        for (int shape = 1; shape < MemberSearchShape.SHAPE_COUNT; shape++) {
+            MemberSearchCondition condition = conditionOf(shape);
+
+            String sql;
+            try (SqlStatementScope scope = sqlStatementCounter.open("plan")) {
+                memberJpaRepository.searchByWhere(condition);
+                assertThat(scope.getStatements()).hasSize(1);
+                sql = scope.getStatements().get(0);
+            }
+
+            String plan = explain(sql, condition);
+            assertThat(plan.toLowerCase())
+                    .as("%s\n%s", MemberSearchShape.describe(shape), plan)
+                    .doesNotContain("tablescan");
+        }
+    }
+
+    private MemberSearchCondition conditionOf(int shape) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if (MemberSearchShape.has(shape, MemberSearchShape.USERNAME)) {
+            condition.setUsername("member42");
+        }
+        if (MemberSearchShape.has(shape, MemberSearchShape.USERNAME_PREFIX)) {
+            condition.setUsernameStartsWith("member4");
+        }
+        if (MemberSearchShape.has(shape, MemberSearchShape.USERNAME_CONTAINS)) {
+            condition.setUsernameContains("ber42");
+        }
+        if (MemberSearchShape.has(shape, MemberSearchShape.TEAM_NAME)) {
+            condition.setTeamName("team2");
+        }
+        if (MemberSearchShape.has(shape, MemberSearchShape.AGE_GOE)) {
+            condition.setAgeGoe(40);
+        }
+        if (MemberSearchShape.has(shape, MemberSearchShape.AGE_LOE)) {
+            condition.setAgeLoe(60);
+        }
+        return condition;
+    }
+
+    //where 절의 바인딩 순서는 username, usernameStartsWith(범위 2개), usernameContains(trigram 들, 개수, like), teamName, ageGoe, ageLoe
+    private String explain(String sql, MemberSearchCondition condition) {
+        List<Object> params = new ArrayList<>();
+        if (condition.getUsername() != null) {
+            params.add(condition.getUsername());
+        }
+        if (condition.getUsernameStartsWith() != null) {
+            params.add(condition.getUsernameStartsWith());
+            params.add(UsernamePatterns.prefixUpperBound(condition.getUsernameStartsWith()));
+        }
+        if (condition.getUsernameContains() != null) {
+            Set<String> trigrams = MemberTrigram.trigrams(condition.getUsernameContains());
+            params.addAll(trigrams);
+            params.add((long) trigrams.size());
+            params.add(UsernamePatterns.containsPattern(condition.getUsernameContains()));
+        }
+        if (condition.getTeamName() != null) {
+            params.add(condition.getTeamName());
+        }
+        if (condition.getAgeGoe() != null) {
+            params.add(condition.getAgeGoe());
+        }
+        if (condition.getAgeLoe() != null) {
+            params.add(condition.getAgeLoe());
+        }
+
+        StringBuilder plan = new StringBuilder();
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("explain " + sql)) {
+                for (int i = 0; i < params.size(); i++) {
+                    ps.setObject(i + 1, params.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                }
+            }
+        });
+        return plan.toString();
+    }
+}
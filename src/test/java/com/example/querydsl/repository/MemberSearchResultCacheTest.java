@@ -0,0 +1,94 @@
+package com.example.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.event.MemberChangedEvent;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+class MemberSearchResultCacheTest {
+
+    MemberSearchResultCache cache = new MemberSearchResultCache(100, 60);
+    AtomicInteger loadCount = new AtomicInteger();
+    Function<MemberSearchCondition, List<MemberTeamDto>> loader = condition -> {
+        loadCount.incrementAndGet();
+        return List.of(new MemberTeamDto(1L, "member1", 10, 1L, condition.getTeamName()));
+    };
+
+    @Test
+    public void normalizedConditionHitsCache(){
+        MemberSearchCondition condition = teamCondition("teamA");
+        condition.setUsername("");
+
+        cache.get(condition, loader);
+        cache.get(teamCondition("teamA"), loader);
+
+        assertThat(loadCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void teamScopedInvalidation(){
+        MemberSearchCondition noTeam = new MemberSearchCondition();
+        cache.get(teamCondition("teamA"), loader);
+        cache.get(teamCondition("teamB"), loader);
+        cache.get(noTeam, loader);
+
+        //teamA 변경은 teamA 와 teamName 조건이 없는 엔트리만 무효화한다
+        cache.on(MemberChangedEvent.teams(Set.of("teamA")));
+
+        cache.get(teamCondition("teamB"), loader);
+        assertThat(loadCount.get()).isEqualTo(3);
+
+        cache.get(teamCondition("teamA"), loader);
+        cache.get(noTeam, loader);
+        assertThat(loadCount.get()).isEqualTo(5);
+    }
+
+    @Test
+    public void bulkChangeInvalidatesAll(){
+        cache.get(teamCondition("teamA"), loader);
+        cache.get(teamCondition("teamB"), loader);
+
+        cache.on(MemberChangedEvent.all());
+
+        cache.get(teamCondition("teamA"), loader);
+        cache.get(teamCondition("teamB"), loader);
+        assertThat(loadCount.get()).isEqualTo(4);
+    }
+
+    //조회 도중 무효화가 일어나면 그 결과는 캐시에 넣지 않는다
+    @Test
+    public void resultLoadedAcrossInvalidationIsNotCached(){
+        cache.get(teamCondition("teamA"), condition -> {
+            cache.on(MemberChangedEvent.all());
+            return loader.apply(condition);
+        });
+
+        cache.get(teamCondition("teamA"), loader);
+        assertThat(loadCount.get()).isEqualTo(2);
+    }
+
+    //호출한 쪽에서 DTO 를 바꿔도 캐시된 결과는 그대로다
+    @Test
+    public void cachedRowsAreNotShared(){
+        cache.get(teamCondition("teamA"), loader).get(0).setUsername("changed");
+        MemberTeamDto hit = cache.get(teamCondition("teamA"), loader).get(0);
+        hit.setAge(99);
+
+        MemberTeamDto again = cache.get(teamCondition("teamA"), loader).get(0);
+        assertThat(loadCount.get()).isEqualTo(1);
+        assertThat(again.getUsername()).isEqualTo("member1");
+        assertThat(again.getAge()).isEqualTo(10);
+    }
+
+    private MemberSearchCondition teamCondition(String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        return condition;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.querydsl.controller.CacheStatsController;
+import com.example.querydsl.entity.Team;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * cache 프로파일의 Team 2차 캐시 / query.teamByName 쿼리 캐시.
+ * 캐시는 트랜잭션(영속성 컨텍스트)을 넘어서 적중해야 하므로 테스트 트랜잭션 없이 호출마다 따로 실행한다.
+ * create-drop 이 다른 테스트 컨텍스트의 DB 를 지우지 않도록 DB 를 따로 쓴다.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:teamCacheTest")
+@ActiveProfiles("cache")
+class TeamCacheTest {
+
+    @Autowired
+    TeamJpaRepository teamJpaRepository;
+    @Autowired
+    CacheStatsController cacheStatsController;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+
+    Statistics statistics;
+
+    @BeforeEach
+    public void before() {
+        emf.getCache().evictAll();
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void findByIdHitsSecondLevelCache() {
+        Long teamId = saveTeam("cacheById");
+        emf.getCache().evictAll();
+        statistics.clear();
+
+        teamJpaRepository.findById(teamId);
+        long statements = statistics.getPrepareStatementCount();
+        Team cached = teamJpaRepository.findById(teamId).orElseThrow();
+
+        assertThat(cached.getName()).isEqualTo("cacheById");
+        assertThat(teamRegion().getMissCount()).isEqualTo(1);
+        assertThat(teamRegion().getHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+    }
+
+    @Test
+    public void findByNameHitsQueryCache() {
+        Long teamId = saveTeam("cacheByName");
+        statistics.clear();
+
+        teamJpaRepository.findByName("cacheByName");
+        long statements = statistics.getPrepareStatementCount();
+        Team cached = teamJpaRepository.findByName("cacheByName").orElseThrow();
+
+        assertThat(cached.getId()).isEqualTo(teamId);
+        assertThat(queryRegion().getHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+    }
+
+    //Team 수정은 엔티티 엔트리를 갱신하고, team 테이블의 update timestamp 로 쿼리 캐시를 무효화한다
+    @Test
+    public void teamWriteInvalidatesCachedResults() {
+        Long teamId = saveTeam("cacheBefore");
+        teamJpaRepository.findById(teamId);
+        teamJpaRepository.findByName("cacheBefore");
+
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, teamId).setName("cacheAfter"));
+        statistics.clear();
+
+        assertThat(teamJpaRepository.findByName("cacheBefore")).isEmpty();
+        assertThat(queryRegion().getHitCount()).isZero();
+        assertThat(teamJpaRepository.findById(teamId).orElseThrow().getName()).isEqualTo("cacheAfter");
+        assertThat(teamRegion().getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void hitRatioIsReported() {
+        Long teamId = saveTeam("cacheRatio");
+        emf.getCache().evictAll();
+        statistics.clear();
+
+        teamJpaRepository.findById(teamId);
+        teamJpaRepository.findById(teamId);
+        teamJpaRepository.findById(teamId);
+
+        Map<String, Object> stats = cacheStatsController.teamCache();
+        assertThat(stats.get("enabled")).isEqualTo(true);
+        Map<String, Object> entity = (Map<String, Object>) stats.get("entity");
+        assertThat(entity.get("hits")).isEqualTo(2L);
+        assertThat(entity.get("misses")).isEqualTo(1L);
+        assertThat((double) entity.get("hitRatio")).isCloseTo(2.0 / 3, within(1e-9));
+    }
+
+    private Long saveTeam(String name) {
+        Team team = new Team(name);
+        teamJpaRepository.save(team);
+        return team.getId();
+    }
+
+    private CacheRegionStatistics teamRegion() {
+        return statistics.getDomainDataRegionStatistics("team");
+    }
+
+    private CacheRegionStatistics queryRegion() {
+        return statistics.getQueryRegionStatistics("query.teamByName");
+    }
+}
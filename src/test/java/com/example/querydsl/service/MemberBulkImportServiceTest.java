@@ -0,0 +1,69 @@
+package com.example.querydsl.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.querydsl.dto.MemberBulkImportResult;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.repository.MemberJpaRepository;
+import com.example.querydsl.support.TestDataCleaner;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+//batch 마다 트랜잭션을 커밋하므로 테스트 트랜잭션 없이 돌리고 끝나면 지운다
+@SpringBootTest(properties = "member.import.batch-size=2")
+class MemberBulkImportServiceTest {
+
+    @Autowired
+    MemberBulkImportService memberBulkImportService;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    TestDataCleaner testDataCleaner;
+
+    @AfterEach
+    public void cleanUp() {
+        testDataCleaner.deleteByPrefix("import");
+    }
+
+    @Test
+    public void importCsv() throws Exception {
+        String csv = "username,age,teamName\n"
+                + "import1,10,importTeamA\n"
+                + "import2,20,importTeamA\n"
+                + "import3,abc,importTeamB\n"
+                + "import4,40,\n"
+                + " ,50,importTeamA\n";
+
+        MemberBulkImportResult result = memberBulkImportService.importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getImportedRows()).isEqualTo(3);
+        assertThat(result.getFailedRows()).isEqualTo(2);
+        assertThat(result.getFailures()).extracting("fromLine").containsExactly(4L, 6L);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("importTeamA");
+        assertThat(memberJpaRepository.searchByWhere(condition))
+                .extracting("username")
+                .containsExactlyInAnyOrder("import1", "import2");
+    }
+
+    @Test
+    public void importNdjson() throws Exception {
+        String ndjson = "{\"username\":\"import1\",\"age\":10,\"teamName\":\"importTeamA\"}\n"
+                + "{\"username\":\"import2\",\"age\":20}\n"
+                + "not json\n"
+                + "{\"age\":30,\"teamName\":\"importTeamA\"}\n";
+
+        MemberBulkImportResult result = memberBulkImportService.importNdjson(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getImportedRows()).isEqualTo(2);
+        assertThat(result.getFailedRows()).isEqualTo(2);
+        assertThat(result.getBatches()).isEqualTo(1);
+    }
+}
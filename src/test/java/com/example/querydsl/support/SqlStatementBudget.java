@@ -0,0 +1,27 @@
+package com.example.querydsl.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.querydsl.monitoring.SqlStatementCounter;
+import com.example.querydsl.monitoring.SqlStatementScope;
+import java.util.function.Supplier;
+
+/**
+ * 호출 하나가 실행하는 SQL 수가 선언한 budget 을 넘으면 테스트를 실패시킨다.
+ * 영속성 컨텍스트에 쌓인 insert 가 같이 세어지지 않도록 호출 전에 flush 해 둔다.
+ */
+public final class SqlStatementBudget {
+
+    private SqlStatementBudget() {
+    }
+
+    public static <T> T assertStatementBudget(SqlStatementCounter counter, int budget, Supplier<T> call) {
+        try (SqlStatementScope scope = counter.open("test")) {
+            T result = call.get();
+            assertThat(scope.getCount())
+                    .as("SQL statements (budget %d): %s", budget, scope.getStatements())
+                    .isLessThanOrEqualTo(budget);
+            return result;
+        }
+    }
+}
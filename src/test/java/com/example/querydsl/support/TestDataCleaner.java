@@ -0,0 +1,41 @@
+package com.example.querydsl.support;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static com.example.querydsl.entity.QTeamSummary.teamSummary;
+
+import com.example.querydsl.repository.MemberJpaRepository;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import javax.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 테스트 트랜잭션 없이 커밋하는 테스트가 만든 데이터를 지운다.
+ * 회원 이름과 팀 이름이 같은 prefix 로 시작해야 하고, 팀을 따라 생기는 team_summary 도 함께 지운다.
+ * 회원은 MemberJpaRepository.bulkDelete 로 지워서 member_trigram 과 검색 결과 캐시도 함께 정리되게 한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class TestDataCleaner {
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager em;
+
+    public void deleteByPrefix(String prefix) {
+        transactionTemplate.executeWithoutResult(status -> {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            memberJpaRepository.bulkDelete(member.username.startsWith(prefix));
+            queryFactory.delete(teamSummary)
+                    .where(teamSummary.teamId.in(JPAExpressions.select(team.id).from(team)
+                            .where(team.name.startsWith(prefix))))
+                    .execute();
+            queryFactory.delete(team)
+                    .where(team.name.startsWith(prefix))
+                    .execute();
+        });
+    }
+}